@@ -26,7 +26,10 @@
 package kong.unirest;
 
 
+import java.nio.ByteBuffer;
+import java.util.Collection;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
 import java.util.function.Function;
 import java.util.stream.Stream;
 
@@ -67,6 +70,30 @@ public interface AsyncClient {
         return request(request, transformer, callback);
     }
 
+    /**
+     * Make a Async request and hand the response over as soon as its head arrives,
+     * with the body published as it comes off the connection.
+     * Clients which can not stream the body read all of it first and publish it as a single buffer.
+     * @param request the prepared request object
+     * @return a CompletableFuture of a response
+     */
+    default CompletableFuture<HttpResponse<Flow.Publisher<ByteBuffer>>> publish(HttpRequest request) {
+        return request(request,
+                r -> new BasicResponse<>(r, Util.publish(r.getContentAsBytes())),
+                new CompletableFuture<>(),
+                Flow.Publisher.class);
+    }
+
+    /**
+     * Resolve the hosts of the origins and open pooled connections to them ahead of the first request.
+     * @param origins the origins to connect to, in the form of scheme://host[:port]
+     * @param connectionsPerHost the number of connections to open per origin
+     * @return a future which completes when the connections are open, and for https origins past their TLS handshake
+     */
+    default CompletableFuture<Void> warmUp(Collection<String> origins, int connectionsPerHost) {
+        return CompletableFuture.completedFuture(null);
+    }
+
     /**
      * @return a stream of exceptions possibly thrown while closing all the things.
      */
@@ -0,0 +1,297 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of unirest-java are held by Kong Inc (c) 2013.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package kong.unirest;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the asynchronous requests of a client within its {@link AsyncLimits}.
+ * Requests which can not be sent yet wait in a bounded queue and are sent by priority as requests complete,
+ * skipping over those whose route is at its limit.
+ * The counts are live, for exporting to metrics.
+ */
+public class AsyncLimiter {
+    private final AsyncLimits limits;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition space = lock.newCondition();
+    private final List<Deque<Pending>> queue = new ArrayList<>();
+    private final Map<String, Integer> routes = new HashMap<>();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private int inFlight;
+    private int queued;
+
+    public AsyncLimiter(AsyncLimits limits) {
+        this.limits = limits;
+        for (Priority ignored : Priority.values()) {
+            queue.add(new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * A request's hold on a place in flight. Release it once the request is complete.
+     */
+    public interface Permit {
+        /**
+         * give the place to the next queued request. Only the first call counts.
+         */
+        void release();
+    }
+
+    /**
+     * Start a request now if the limits allow it, otherwise queue it or fail it by the overflow policy.
+     * Either start or reject is called exactly once, perhaps on another thread when the request was queued.
+     *
+     * @param route the origin of the request
+     * @param priority the priority of the request in the queue
+     * @param start sends the request, and releases the permit when it completes
+     * @param reject fails the request
+     */
+    public void submit(String route, Priority priority, Consumer<Permit> start, Consumer<UnirestException> reject) {
+        Pending request = new Pending(route, priority, start, reject);
+        List<Pending> failed = new ArrayList<>();
+        List<Pending> ready;
+        lock.lock();
+        try {
+            if (makeRoom(request, failed)) {
+                queue.get(priority.ordinal()).addLast(request);
+                queued++;
+            } else {
+                rejected.incrementAndGet();
+                failed.add(request);
+            }
+            ready = drain();
+        } finally {
+            lock.unlock();
+        }
+        failed.forEach(p -> p.reject.accept(new UnirestException("Async request limit reached for " + p.route)));
+        ready.forEach(p -> p.start.accept(new Grant(p.route)));
+    }
+
+    /**
+     * Nothing left in the queue can be sent, so a full queue only turns away a request which would have to wait.
+     */
+    private boolean makeRoom(Pending request, List<Pending> failed) {
+        int max = limits.getMaxQueued();
+        if (max <= 0 || queued < max || hasRoom(request.route)) {
+            return true;
+        }
+        switch (limits.getOverflow()) {
+            case DROP_OLDEST:
+                Pending oldest = peekOldest();
+                if (oldest == null || oldest.priority.compareTo(request.priority) < 0) {
+                    // a request never pushes out one of higher priority
+                    return false;
+                }
+                queue.get(oldest.priority.ordinal()).pollFirst();
+                queued--;
+                dropped.incrementAndGet();
+                failed.add(oldest);
+                return true;
+            case WAIT:
+                long timeout = limits.getWaitTimeout();
+                long nanos = timeout > 0 ? TimeUnit.MILLISECONDS.toNanos(timeout) : Long.MAX_VALUE;
+                try {
+                    while (queued >= max && !hasRoom(request.route)) {
+                        if (nanos <= 0) {
+                            return false;
+                        }
+                        nanos = space.awaitNanos(nanos);
+                    }
+                    return true;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * The oldest request of the lowest priority in the queue.
+     */
+    private Pending peekOldest() {
+        for (int i = queue.size() - 1; i >= 0; i--) {
+            Pending oldest = queue.get(i).peekFirst();
+            if (oldest != null) {
+                return oldest;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Take every queued request which now fits, highest priority and oldest first.
+     */
+    private List<Pending> drain() {
+        List<Pending> ready = new ArrayList<>();
+        if (queued == 0 || (limits.getMaxInFlight() > 0 && inFlight >= limits.getMaxInFlight())) {
+            return ready;
+        }
+        for (Deque<Pending> level : queue) {
+            Iterator<Pending> it = level.iterator();
+            while (it.hasNext()) {
+                Pending next = it.next();
+                if (hasRoom(next.route)) {
+                    it.remove();
+                    queued--;
+                    take(next.route);
+                    ready.add(next);
+                }
+            }
+        }
+        if (!ready.isEmpty()) {
+            space.signalAll();
+        }
+        return ready;
+    }
+
+    private boolean hasRoom(String route) {
+        int max = limits.getMaxInFlight();
+        int perRoute = limits.getMaxInFlightPerRoute();
+        return (max <= 0 || inFlight < max)
+                && (perRoute <= 0 || routes.getOrDefault(route, 0) < perRoute);
+    }
+
+    private void take(String route) {
+        inFlight++;
+        routes.merge(route, 1, Integer::sum);
+    }
+
+    private void release(String route) {
+        List<Pending> ready;
+        lock.lock();
+        try {
+            inFlight--;
+            routes.computeIfPresent(route, (r, n) -> n > 1 ? n - 1 : null);
+            ready = drain();
+        } finally {
+            lock.unlock();
+        }
+        ready.forEach(p -> p.start.accept(new Grant(p.route)));
+    }
+
+    /**
+     * @return the requests in flight now
+     */
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param route the origin of a route
+     * @return the requests in flight to the route now
+     */
+    public int getInFlight(String route) {
+        lock.lock();
+        try {
+            return routes.getOrDefault(route, 0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the requests waiting in the queue now
+     */
+    public int getQueued() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the requests failed because the queue was full, since the limiter was created
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    /**
+     * @return the queued requests failed to make room for newer ones, since the limiter was created
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * @return the limits being kept
+     */
+    public AsyncLimits getLimits() {
+        return limits;
+    }
+
+    private class Grant implements Permit {
+        private final String route;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Grant(String route) {
+            this.route = route;
+        }
+
+        @Override
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                AsyncLimiter.this.release(route);
+            }
+        }
+    }
+
+    private static class Pending {
+        private final String route;
+        private final Priority priority;
+        private final Consumer<Permit> start;
+        private final Consumer<UnirestException> reject;
+
+        Pending(String route, Priority priority, Consumer<Permit> start, Consumer<UnirestException> reject) {
+            this.route = route;
+            this.priority = priority;
+            this.start = start;
+            this.reject = reject;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of unirest-java are held by Kong Inc (c) 2013.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package kong.unirest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits on the asynchronous requests a client takes on at once.
+ * Requests beyond the in-flight limits wait in a bounded queue, and the overflow policy decides
+ * what happens to a request which finds the queue full.
+ * A limit which is not set (or is zero) is unlimited.
+ */
+public class AsyncLimits {
+    /**
+     * What to do with a request when the queue is full
+     */
+    public enum Overflow {
+        /**
+         * Fail the new request straight away
+         */
+        REJECT,
+        /**
+         * Block the caller until there is room in the queue, up to the wait timeout, then fail the request.
+         * Do not use if requests are made from async callbacks running on the IO threads.
+         */
+        WAIT,
+        /**
+         * Fail the oldest queued request of the lowest queued priority to make room for the new one
+         */
+        DROP_OLDEST
+    }
+
+    private final int maxInFlight;
+    private final int maxInFlightPerRoute;
+    private final int maxQueued;
+    private final Overflow overflow;
+    private final long waitTimeout;
+
+    private AsyncLimits(Builder builder) {
+        this.maxInFlight = builder.maxInFlight;
+        this.maxInFlightPerRoute = builder.maxInFlightPerRoute;
+        this.maxQueued = builder.maxQueued;
+        this.overflow = builder.overflow;
+        this.waitTimeout = builder.waitTimeout;
+    }
+
+    /**
+     * a builder for async limits
+     * @return a new Builder.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return the most requests in flight at once, or 0 for no limit
+     */
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * @return the most requests in flight at once to a single route, or 0 for no limit
+     */
+    public int getMaxInFlightPerRoute() {
+        return maxInFlightPerRoute;
+    }
+
+    /**
+     * @return the most requests waiting to be sent, or 0 for no limit
+     */
+    public int getMaxQueued() {
+        return maxQueued;
+    }
+
+    /**
+     * @return what happens to a request which finds the queue full
+     */
+    public Overflow getOverflow() {
+        return overflow;
+    }
+
+    /**
+     * @return how long the WAIT policy blocks in milliseconds, 0 for no limit
+     */
+    public long getWaitTimeout() {
+        return waitTimeout;
+    }
+
+    public static class Builder {
+        private int maxInFlight;
+        private int maxInFlightPerRoute;
+        private int maxQueued;
+        private Overflow overflow = Overflow.REJECT;
+        private long waitTimeout;
+
+        /**
+         * Limit the requests in flight at once across all routes.
+         * @param value the limit
+         * @return this builder.
+         */
+        public Builder maxInFlight(int value) {
+            this.maxInFlight = value;
+            return this;
+        }
+
+        /**
+         * Limit the requests in flight at once to any single route.
+         * @param value the limit
+         * @return this builder.
+         */
+        public Builder maxInFlightPerRoute(int value) {
+            this.maxInFlightPerRoute = value;
+            return this;
+        }
+
+        /**
+         * Limit the requests waiting for room to be sent.
+         * @param value the limit
+         * @return this builder.
+         */
+        public Builder maxQueued(int value) {
+            this.maxQueued = value;
+            return this;
+        }
+
+        /**
+         * Set what happens to a request which finds the queue full. The default is REJECT.
+         * @param value the policy
+         * @return this builder.
+         */
+        public Builder overflow(Overflow value) {
+            this.overflow = value;
+            return this;
+        }
+
+        /**
+         * Block a caller for room in the queue for at most this long, and then fail the request.
+         * Implies the WAIT policy.
+         * @param time the time to wait
+         * @param unit the unit of time
+         * @return this builder.
+         */
+        public Builder waitFor(long time, TimeUnit unit) {
+            this.overflow = Overflow.WAIT;
+            this.waitTimeout = unit.toMillis(time);
+            return this;
+        }
+
+        public AsyncLimits build() {
+            return new AsyncLimits(this);
+        }
+    }
+}
@@ -25,7 +25,10 @@
 
 package kong.unirest;
 
+import org.json.gsc.JSONObject;
+
 import java.io.File;
+import java.nio.ByteBuffer;
 import java.nio.file.CopyOption;
 import java.time.Instant;
 import java.util.Collection;
@@ -33,9 +36,12 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Flow;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import static kong.unirest.CallbackFuture.wrap;
 
@@ -51,6 +57,10 @@ abstract class BaseRequest<R extends HttpRequest> implements HttpRequest<R> {
     protected Path url;
     private Integer socketTimeout;
     private Integer connectTimeout;
+    private Integer requestTimeout;
+    private Instant deadline;
+    private Priority priority = Priority.NORMAL;
+    private String tenant;
     private Proxy proxy;
     private ProgressMonitor downloadMonitor;
 
@@ -61,6 +71,9 @@ abstract class BaseRequest<R extends HttpRequest> implements HttpRequest<R> {
         this.headers.putAll(httpRequest.headers);
         this.socketTimeout = httpRequest.socketTimeout;
         this.connectTimeout = httpRequest.connectTimeout;
+        this.requestTimeout = httpRequest.requestTimeout;
+        this.priority = httpRequest.priority;
+        this.tenant = httpRequest.tenant;
         this.proxy = httpRequest.proxy;
         this.objectMapper = httpRequest.objectMapper;
     }
@@ -174,6 +187,24 @@ abstract class BaseRequest<R extends HttpRequest> implements HttpRequest<R> {
         return (R) this;
     }
 
+    @Override
+    public R requestTimeout(int millies) {
+        this.requestTimeout = millies;
+        return (R) this;
+    }
+
+    @Override
+    public R priority(Priority priority) {
+        this.priority = Objects.requireNonNull(priority, "Priority may not be null");
+        return (R) this;
+    }
+
+    @Override
+    public R tenant(String tenant) {
+        this.tenant = tenant;
+        return (R) this;
+    }
+
     @Override
     public R proxy(String host, int port) {
         this.proxy = new Proxy(host, port);
@@ -242,11 +273,48 @@ abstract class BaseRequest<R extends HttpRequest> implements HttpRequest<R> {
         return config.getAsyncClient().request(this, ByteResponse::new, wrap(callback), byte[].class);
     }
 
+    @Override
+    public CompletableFuture<HttpResponse<Flow.Publisher<ByteBuffer>>> asPublisher() {
+        return config.getAsyncClient().publish(this);
+    }
+
     @Override
     public HttpResponse<JsonNode> asJson() throws UnirestException {
         return request(JsonResponse::new, JsonNode.class);
     }
 
+    @Override
+    public HttpResponse<JsonNode> asJson(JsonProjection projection) {
+        // the result depends on the projection, which the cache key can not tell apart, so it is never cached
+        return send(() -> config.getUnwrappedClient().request(this, r -> project(r, projection), JsonNode.class));
+    }
+
+    @Override
+    public CompletableFuture<HttpResponse<JsonNode>> asJsonAsync(JsonProjection projection) {
+        return config.getUnwrappedAsyncClient()
+                .request(this, r -> project(r, projection), new CompletableFuture<>(), JsonNode.class);
+    }
+
+    @Override
+    public HttpResponse<JsonNode> asJsonParallel() {
+        return request(r -> new BasicResponse<>(r, ParallelJson.of(r).parse(config.getJsonParsePool())), ParallelJson.class);
+    }
+
+    @Override
+    public CompletableFuture<HttpResponse<JsonNode>> asJsonParallelAsync() {
+        // the unparsed bytes are what is cached, under a key of their own, and each caller parses them off the IO threads
+        ForkJoinPool pool = config.getJsonParsePool();
+        return config.getAsyncClient()
+                .request(this, r -> new BasicResponse<>(r, ParallelJson.of(r)), new CompletableFuture<>(), ParallelJson.class)
+                .thenApplyAsync(r -> ParallelJson.parse(r, pool), pool);
+    }
+
+    private static HttpResponse<JsonNode> project(RawResponse r, JsonProjection projection) {
+        return new BasicResponse<>(r, r.hasContent()
+                ? projection.apply(r.getContent(), JsonResponse.getCharset(r))
+                : new JsonNode(null));
+    }
+
     @Override
     public CompletableFuture<HttpResponse<JsonNode>> asJsonAsync() {
 
@@ -258,6 +326,26 @@ abstract class BaseRequest<R extends HttpRequest> implements HttpRequest<R> {
         return config.getAsyncClient().request(this, JsonResponse::new, wrap(callback), JsonNode.class);
     }
 
+    @Override
+    public HttpResponse<Stream<JSONObject>> asJsonStream() {
+        return send(() -> config.getClient().stream(this, r -> new BasicResponse<>(r, JsonRecords.stream(r.getContent()))));
+    }
+
+    @Override
+    public CompletableFuture<HttpResponse<Long>> asJsonStreamAsync(Consumer<JSONObject> record) {
+        // the records are parsed from the raw bytes, so ask a copy of the request for them unencoded
+        PageRequest unencoded = new PageRequest(this, getUrl()).headerReplace("Accept-Encoding", "identity");
+        return unencoded.asPublisher().thenCompose(response -> {
+            if (!response.isSuccess()) {
+                Util.discard(response.getBody());
+                return CompletableFuture.completedFuture(response.map(body -> 0L));
+            }
+            JsonRecords.Subscriber subscriber = new JsonRecords.Subscriber(record);
+            response.getBody().subscribe(subscriber);
+            return subscriber.future().thenApply(count -> response.map(body -> count));
+        });
+    }
+
     /*
     @Override
     public <T> HttpResponse<T> asObject(Class<? extends T> responseClass) throws UnirestException {
@@ -352,24 +440,59 @@ abstract class BaseRequest<R extends HttpRequest> implements HttpRequest<R> {
     @Override
     public <T> PagedList<T> asPaged(Function<HttpRequest, HttpResponse> mappingFunction, Function<HttpResponse<T>, String> linkExtractor) {
         PagedList<T> all = new PagedList<>();
-        String nextLink = this.getUrl();
-        do {
-            this.url = new Path(nextLink, config.getDefaultBaseUrl());
-            HttpResponse<T> next = mappingFunction.apply(this);
+        HttpRequest page = this;
+        while (true) {
+            HttpResponse<T> next = mappingFunction.apply(page);
             all.add(next);
-            nextLink = linkExtractor.apply(next);
-        } while (!Util.isNullOrEmpty(nextLink));
-        return all;
+            String nextLink = linkExtractor.apply(next);
+            if (Util.isNullOrEmpty(nextLink)) {
+                return all;
+            }
+            page = new PageRequest(this, nextLink);
+        }
+    }
+
+    @Override
+    public <T> Pager<T> pages(Function<HttpRequest<?>, CompletableFuture<HttpResponse<T>>> call) {
+        return new Pager<>(this, call);
+    }
+
+    @Override
+    public EventSource events() {
+        return new EventSource(this, config);
     }
 
     private <E> HttpResponse<E> request(Function<RawResponse, HttpResponse<E>> transformer, Class<?> resultType) {
-        HttpResponse<E> response = config.getClient().request(this, transformer, resultType);
+        return send(() -> config.getClient().request(this, transformer, resultType));
+    }
+
+    private <E> HttpResponse<E> send(Supplier<HttpResponse<E>> call) {
+        // retries share the deadline of the first attempt
+        deadline = null;
+        deadline = getDeadline();
+        try {
+            return attempt(call);
+        } finally {
+            deadline = null;
+        }
+    }
+
+    private <E> HttpResponse<E> attempt(Supplier<HttpResponse<E>> call) {
+        HttpResponse<E> response = call.get();
         callCount++;
         if (config.isAutomaticRetryAfter() && RetryAfter.isRetriable(response) && callCount < config.maxRetries()) {
             RetryAfter retryAfter = RetryAfter.from(response);
-            if (retryAfter.canWait()) {
+            if (retryAfter.canWait() && retryAfter.endsBefore(deadline)) {
+                // a streamed body holds on to its connection until it is closed
+                if (response.getBody() instanceof AutoCloseable) {
+                    try {
+                        ((AutoCloseable) response.getBody()).close();
+                    } catch (Exception ignored) {
+                        // the connection is given up either way
+                    }
+                }
                 retryAfter.waitForIt();
-                return request(transformer, resultType);
+                return attempt(call);
             }
         }
         return response;
@@ -415,6 +538,30 @@ abstract class BaseRequest<R extends HttpRequest> implements HttpRequest<R> {
         return valueOr(connectTimeout, config::getConnectionTimeout);
     }
 
+    @Override
+    public int getRequestTimeout() {
+        return valueOr(requestTimeout, config::getRequestTimeout);
+    }
+
+    @Override
+    public Instant getDeadline() {
+        if (deadline != null) {
+            return deadline;
+        }
+        int timeout = getRequestTimeout();
+        return timeout > 0 ? Util.now().plusMillis(timeout) : null;
+    }
+
+    @Override
+    public Priority getPriority() {
+        return priority;
+    }
+
+    @Override
+    public String getTenant() {
+        return tenant;
+    }
+
     @Override
     public Proxy getProxy() {
         return valueOr(proxy, config::getProxy);
@@ -0,0 +1,92 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of unirest-java are held by Kong Inc (c) 2013.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package kong.unirest;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * A synchronous Client which runs every request on the asynchronous client of the config and waits for it,
+ * so that both kinds of requests share the one reactor, connection pool and set of limits.
+ * Blocking requests must not be made from the threads of the async client itself
+ * (for example from an async callback without a completion executor), as they would wait on themselves.
+ */
+class BlockingClient implements Client {
+    private final Config config;
+
+    BlockingClient(Config config) {
+        this.config = config;
+    }
+
+    /**
+     * @return the async client the requests run on. There is no sync client to return,
+     * so this is an HttpAsyncClient and not an HttpClient
+     */
+    @Override
+    public Object getClient() {
+        return config.getUnwrappedAsyncClient().getClient();
+    }
+
+    @Override
+    public <T> HttpResponse<T> request(HttpRequest request, Function<RawResponse, HttpResponse<T>> transformer) {
+        return request(request, transformer, Object.class);
+    }
+
+    @Override
+    public <T> HttpResponse<T> request(HttpRequest request, Function<RawResponse, HttpResponse<T>> transformer, Class<?> resultType) {
+        CompletableFuture<HttpResponse<T>> future = config.getUnwrappedAsyncClient()
+                .request(request, transformer, new CompletableFuture<>(), resultType);
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new UnirestException(e);
+        } catch (CancellationException e) {
+            throw new UnirestException("canceled");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UnirestException) {
+                throw (UnirestException) cause;
+            }
+            throw new UnirestException(cause);
+        }
+    }
+
+    @Override
+    public Stream<Exception> close() {
+        // the async client owns the connections and is closed by the config
+        return Stream.empty();
+    }
+
+    @Override
+    public void registerShutdownHook() {
+        config.getUnwrappedAsyncClient().registerShutdownHook();
+    }
+}
@@ -0,0 +1,132 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of unirest-java are held by Kong Inc (c) 2013.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package kong.unirest;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Sends many independent requests with a bound on how many are in flight at once, in total and to each host.
+ * By default the bounds are the connection limits of the config, so that requests never queue inside the pool
+ * and the pool is kept full.
+ * Requests are sent in the order given as room allows.
+ */
+public class BulkRequest {
+    private final Config config;
+    private final List<HttpRequest<?>> requests;
+    private int parallelism;
+    private int perHost;
+
+    BulkRequest(Config config, Collection<? extends HttpRequest<?>> requests) {
+        this.config = config;
+        this.requests = new ArrayList<>(requests);
+        this.parallelism = config.getMaxConnections();
+        this.perHost = config.getMaxPerRoutes();
+    }
+
+    /**
+     * Limit the requests in flight at once. Default is the config's total connection limit.
+     * @param value the limit
+     * @return this bulk request
+     */
+    public BulkRequest parallelism(int value) {
+        this.parallelism = value;
+        return this;
+    }
+
+    /**
+     * Limit the requests in flight at once to any one host. Default is the config's per route connection limit.
+     * @param value the limit
+     * @return this bulk request
+     */
+    public BulkRequest perHost(int value) {
+        this.perHost = value;
+        return this;
+    }
+
+    /**
+     * Send the requests on the async client, returning the bodies as strings
+     * @return the results, which fill in as the requests complete
+     */
+    public BulkResponse<String> asString() {
+        return sendAsync(HttpRequest::asStringAsync);
+    }
+
+    /**
+     * Send the requests on the async client, returning the bodies as json
+     * @return the results, which fill in as the requests complete
+     */
+    public BulkResponse<JsonNode> asJson() {
+        return sendAsync(HttpRequest::asJsonAsync);
+    }
+
+    /**
+     * Send the requests on the async client, returning the bodies as bytes
+     * @return the results, which fill in as the requests complete
+     */
+    public BulkResponse<byte[]> asBytes() {
+        return sendAsync(HttpRequest::asBytesAsync);
+    }
+
+    /**
+     * Send the requests with an async call of your choosing
+     * @param call makes the async call for one request, e.g. r -&gt; r.asObjectAsync(Book.class)
+     * @param <T> the type of the body
+     * @return the results, which fill in as the requests complete
+     */
+    public <T> BulkResponse<T> sendAsync(Function<HttpRequest<?>, CompletableFuture<HttpResponse<T>>> call) {
+        BulkResponse<T> response = new BulkResponse<>(requests, parallelism, perHost, call);
+        response.start();
+        return response;
+    }
+
+    /**
+     * Send the requests with a synchronous call of your choosing, on as many threads as the parallelism.
+     * The threads are stopped once the last request is done.
+     * @param call makes the call for one request, e.g. HttpRequest::asString
+     * @param <T> the type of the body
+     * @return the results, which fill in as the requests complete
+     */
+    public <T> BulkResponse<T> send(Function<HttpRequest<?>, HttpResponse<T>> call) {
+        AtomicInteger count = new AtomicInteger();
+        ExecutorService threads = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, requests.size())), r -> {
+            Thread t = new Thread(r, "Unirest Bulk Request " + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        BulkResponse<T> response = new BulkResponse<>(requests, parallelism, perHost,
+                r -> CompletableFuture.supplyAsync(() -> call.apply(r), threads));
+        response.future().whenComplete((v, e) -> threads.shutdown());
+        response.start();
+        return response;
+    }
+}
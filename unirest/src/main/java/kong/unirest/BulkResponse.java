@@ -0,0 +1,353 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of unirest-java are held by Kong Inc (c) 2013.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package kong.unirest;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The results of a {@link BulkRequest}. They can be taken in the order of the requests once all are done,
+ * as they complete through an iterator or stream, or pushed to a callback.
+ * A request which throws is a failure with its exception; one which gets a response (of any status) is not.
+ * @param <T> the type of the bodies
+ */
+public class BulkResponse<T> implements Iterable<BulkResponse.Result<T>> {
+    private final List<HttpRequest<?>> requests;
+    private final int parallelism;
+    private final int perHost;
+    private final Function<HttpRequest<?>, CompletableFuture<HttpResponse<T>>> call;
+    private final Result<T>[] results;
+    private final CompletableFuture<?>[] running;
+    private final Deque<Integer> pending = new ArrayDeque<>();
+    private final Map<String, Integer> hosts = new HashMap<>();
+    private final BlockingQueue<Result<T>> completed = new LinkedBlockingQueue<>();
+    private final List<Result<T>> delivered = new ArrayList<>();
+    private final List<Consumer<Result<T>>> listeners = new ArrayList<>();
+    private final CompletableFuture<Void> done = new CompletableFuture<>();
+    private final AtomicInteger wip = new AtomicInteger();
+    private int inFlight;
+    private int finished;
+    private boolean cancelled;
+
+    @SuppressWarnings("unchecked")
+    BulkResponse(List<HttpRequest<?>> requests, int parallelism, int perHost,
+                 Function<HttpRequest<?>, CompletableFuture<HttpResponse<T>>> call) {
+        this.requests = requests;
+        this.parallelism = parallelism;
+        this.perHost = perHost;
+        this.call = call;
+        this.results = new Result[requests.size()];
+        this.running = new CompletableFuture[requests.size()];
+        for (int i = 0; i < requests.size(); i++) {
+            pending.add(i);
+        }
+    }
+
+    void start() {
+        if (requests.isEmpty()) {
+            done.complete(null);
+        }
+        pump();
+    }
+
+    /**
+     * Send whatever fits. A call which completes straight away comes back in here, so only the outermost
+     * caller loops and the stack stays flat however many requests there are.
+     */
+    private void pump() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        do {
+            for (int index : take()) {
+                launch(index);
+            }
+        } while (wip.decrementAndGet() != 0);
+    }
+
+    private synchronized List<Integer> take() {
+        List<Integer> ready = new ArrayList<>();
+        Iterator<Integer> it = pending.iterator();
+        while (it.hasNext() && (parallelism <= 0 || inFlight < parallelism)) {
+            int index = it.next();
+            String host = host(requests.get(index));
+            if (perHost <= 0 || hosts.getOrDefault(host, 0) < perHost) {
+                it.remove();
+                inFlight++;
+                hosts.merge(host, 1, Integer::sum);
+                ready.add(index);
+            }
+        }
+        return ready;
+    }
+
+    private void launch(int index) {
+        // a cancel between take() and here finds the request neither pending nor running, so look again
+        boolean skip;
+        synchronized (this) {
+            skip = cancelled;
+        }
+        if (skip) {
+            complete(index, null, new CancellationException("Bulk request cancelled"));
+            return;
+        }
+        HttpRequest<?> request = requests.get(index);
+        CompletableFuture<HttpResponse<T>> future;
+        try {
+            future = call.apply(request);
+        } catch (RuntimeException e) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+        }
+        boolean cancelNow;
+        synchronized (this) {
+            running[index] = future;
+            cancelNow = cancelled;
+        }
+        if (cancelNow) {
+            future.cancel(true);
+        }
+        future.whenComplete((r, e) -> complete(index, r, e));
+    }
+
+    private void complete(int index, HttpResponse<T> response, Throwable error) {
+        Result<T> result = new Result<>(index, requests.get(index), response, unwrap(error));
+        synchronized (this) {
+            running[index] = null;
+            inFlight--;
+            hosts.computeIfPresent(host(requests.get(index)), (h, n) -> n > 1 ? n - 1 : null);
+        }
+        finish(result);
+        pump();
+    }
+
+    private void finish(Result<T> result) {
+        results[result.index] = result;
+        completed.offer(result);
+        synchronized (listeners) {
+            delivered.add(result);
+            listeners.forEach(l -> l.accept(result));
+        }
+        boolean last;
+        synchronized (this) {
+            last = ++finished == results.length;
+        }
+        if (last) {
+            done.complete(null);
+        }
+    }
+
+    private static Exception unwrap(Throwable error) {
+        Throwable e = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (e == null || e instanceof Exception) {
+            return (Exception) e;
+        }
+        return new UnirestException(e);
+    }
+
+    private static String host(HttpRequest<?> request) {
+        try {
+            URI uri = URI.create(request.getUrl());
+            return uri.getScheme() + "://" + uri.getAuthority();
+        } catch (IllegalArgumentException e) {
+            return request.getUrl();
+        }
+    }
+
+    /**
+     * Call the consumer with each result as it completes, and straight away with those already complete.
+     * Calls are made one at a time.
+     * @param consumer the callback
+     * @return this
+     */
+    public BulkResponse<T> onEach(Consumer<Result<T>> consumer) {
+        synchronized (listeners) {
+            delivered.forEach(consumer);
+            listeners.add(consumer);
+        }
+        return this;
+    }
+
+    /**
+     * Iterate over the results in the order they complete, blocking for each until it does.
+     * The results can only be taken this way once.
+     * @return an iterator over the results
+     */
+    @Override
+    public Iterator<Result<T>> iterator() {
+        return new Iterator<Result<T>>() {
+            private int taken;
+
+            @Override
+            public boolean hasNext() {
+                return taken < results.length;
+            }
+
+            @Override
+            public Result<T> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                try {
+                    Result<T> next = completed.take();
+                    taken++;
+                    return next;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new UnirestException(e);
+                }
+            }
+        };
+    }
+
+    /**
+     * @return the results in the order they complete, blocking for each until it does
+     */
+    public Stream<Result<T>> stream() {
+        return StreamSupport.stream(Spliterators.spliterator(iterator(), results.length, Spliterator.ORDERED), false);
+    }
+
+    /**
+     * Wait for all the requests, then return their results in the order of the requests
+     * @return every result
+     */
+    public List<Result<T>> getResults() {
+        done.join();
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Wait for all the requests, then return those which failed
+     * @return the failed results
+     */
+    public List<Result<T>> getFailures() {
+        return getResults().stream().filter(r -> !r.isSuccess()).collect(Collectors.toList());
+    }
+
+    /**
+     * @return a future which completes when every request is done
+     */
+    public CompletableFuture<Void> future() {
+        return done;
+    }
+
+    /**
+     * Fail the requests not yet sent and cancel those in flight
+     */
+    public void cancel() {
+        List<Integer> dropped;
+        List<CompletableFuture<?>> inFlightNow = new ArrayList<>();
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            dropped = new ArrayList<>(pending);
+            pending.clear();
+            for (CompletableFuture<?> f : running) {
+                if (f != null) {
+                    inFlightNow.add(f);
+                }
+            }
+        }
+        dropped.forEach(i -> finish(new Result<>(i, requests.get(i), null, new CancellationException("Bulk request cancelled"))));
+        inFlightNow.forEach(f -> f.cancel(true));
+    }
+
+    /**
+     * The outcome of one request of the bulk
+     * @param <T> the type of the body
+     */
+    public static class Result<T> {
+        private final int index;
+        private final HttpRequest<?> request;
+        private final HttpResponse<T> response;
+        private final Exception exception;
+
+        Result(int index, HttpRequest<?> request, HttpResponse<T> response, Exception exception) {
+            this.index = index;
+            this.request = request;
+            this.response = response;
+            this.exception = exception;
+        }
+
+        /**
+         * @return the position of the request in the bulk
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * @return the request
+         */
+        public HttpRequest<?> getRequest() {
+            return request;
+        }
+
+        /**
+         * @return the response, or null if the request failed
+         */
+        public HttpResponse<T> getResponse() {
+            return response;
+        }
+
+        /**
+         * @return the exception the request failed with, or null
+         */
+        public Exception getException() {
+            return exception;
+        }
+
+        /**
+         * @return if the request got a response, whatever its status
+         */
+        public boolean isSuccess() {
+            return exception == null;
+        }
+    }
+}
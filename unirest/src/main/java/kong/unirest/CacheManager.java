@@ -25,13 +25,16 @@
 
 package kong.unirest;
 
+import java.nio.ByteBuffer;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
@@ -137,6 +140,17 @@ class CacheManager {
                     () -> originalClient.request(request, transformer, responseType));
         }
 
+        @Override
+        public <T> HttpResponse<T> stream(HttpRequest request, Function<RawResponse, HttpResponse<T>> transformer) {
+            // a streamed body can only be read once, so it is never cached
+            return originalClient.stream(request, transformer);
+        }
+
+        @Override
+        public CompletableFuture<Void> warmUp(Collection<String> origins, int connectionsPerHost) {
+            return originalClient.warmUp(origins, connectionsPerHost);
+        }
+
         @Override
         public Stream<Exception> close() {
             return originalClient.close();
@@ -171,6 +185,17 @@ class CacheManager {
                     () -> originalAsync.request(request, transformer, callback, responseType));
         }
 
+        @Override
+        public CompletableFuture<HttpResponse<Flow.Publisher<ByteBuffer>>> publish(HttpRequest request) {
+            // a published body can only be read once, so it is never cached
+            return originalAsync.publish(request);
+        }
+
+        @Override
+        public CompletableFuture<Void> warmUp(Collection<String> origins, int connectionsPerHost) {
+            return originalAsync.warmUp(origins, connectionsPerHost);
+        }
+
         @Override
         public void registerShutdownHook() {
             originalAsync.registerShutdownHook();
@@ -0,0 +1,342 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of unirest-java are held by Kong Inc (c) 2013.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package kong.unirest;
+
+import org.apache.http.conn.util.InetAddressUtils;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A HostResolver which keeps the answers of another resolver for a fixed time.
+ * Entries are refreshed in the background shortly before they expire so that lookups stay off the request path,
+ * failed lookups are remembered for a shorter time, and hosts with several addresses can be rotated so that new
+ * connections are spread across all of them.
+ * Concurrent lookups of the same host share a single query.
+ */
+public class CachingHostResolver implements HostResolver {
+    private static ExecutorService refresher;
+
+    private final HostResolver delegate;
+    private final long ttl;
+    private final long negativeTtl;
+    private final double refreshAhead;
+    private final boolean rotate;
+    private final Map<String, InetAddress[]> overrides;
+    private final Map<String, CompletableFuture<Entry>> cache = new ConcurrentHashMap<>();
+
+    private CachingHostResolver(Builder builder) {
+        this.delegate = builder.delegate;
+        this.ttl = builder.ttl;
+        this.negativeTtl = builder.negativeTtl;
+        this.refreshAhead = builder.refreshAhead;
+        this.rotate = builder.rotate;
+        this.overrides = new HashMap<>(builder.overrides);
+    }
+
+    /**
+     * a builder for a caching resolver
+     * @return a new Builder.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public InetAddress[] resolve(String host) throws UnknownHostException {
+        String key = host.toLowerCase(Locale.ROOT);
+        InetAddress[] fixed = overrides.get(key);
+        if (fixed != null) {
+            return order(fixed, null);
+        }
+        Entry entry = lookup(key, host);
+        if (entry.failure != null) {
+            UnknownHostException e = new UnknownHostException(entry.failure.getMessage());
+            e.initCause(entry.failure);
+            throw e;
+        }
+        if (entry.shouldRefresh()) {
+            refresh(key, host, entry);
+        }
+        return order(entry.addresses, entry.next);
+    }
+
+    /**
+     * Drop all cached entries. The file and programmatic overrides are kept.
+     */
+    public void clear() {
+        cache.clear();
+    }
+
+    private Entry lookup(String key, String host) throws UnknownHostException {
+        while (true) {
+            CompletableFuture<Entry> pending = cache.get(key);
+            if (pending == null) {
+                CompletableFuture<Entry> mine = new CompletableFuture<>();
+                if (cache.putIfAbsent(key, mine) == null) {
+                    mine.complete(query(host));
+                    return mine.join();
+                }
+                continue;
+            }
+            Entry entry = await(pending);
+            if (!entry.isExpired()) {
+                return entry;
+            }
+            CompletableFuture<Entry> mine = new CompletableFuture<>();
+            if (cache.replace(key, pending, mine)) {
+                mine.complete(query(host));
+                return mine.join();
+            }
+        }
+    }
+
+    private Entry await(CompletableFuture<Entry> pending) throws UnknownHostException {
+        try {
+            return pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UnknownHostException("Interrupted while resolving");
+        } catch (ExecutionException e) {
+            throw new UnknownHostException(e.getCause().getMessage());
+        }
+    }
+
+    private void refresh(String key, String host, Entry stale) {
+        if (!stale.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        executor().execute(() -> {
+            Entry fresh = query(host);
+            if (fresh.failure != null) {
+                // keep serving the old addresses until they really expire
+                stale.refreshing.set(false);
+                return;
+            }
+            cache.computeIfPresent(key, (k, v) -> v.getNow(null) == stale ? CompletableFuture.completedFuture(fresh) : v);
+        });
+    }
+
+    private Entry query(String host) {
+        long now = System.currentTimeMillis();
+        try {
+            InetAddress[] addresses = delegate.resolve(host);
+            if (addresses == null || addresses.length == 0) {
+                throw new UnknownHostException(host);
+            }
+            return new Entry(addresses, null, now, now + ttl);
+        } catch (UnknownHostException | RuntimeException e) {
+            return new Entry(null, e, now, now + negativeTtl);
+        }
+    }
+
+    private InetAddress[] order(InetAddress[] addresses, AtomicInteger next) {
+        if (!rotate || next == null || addresses.length == 1) {
+            return addresses.clone();
+        }
+        int start = Math.floorMod(next.getAndIncrement(), addresses.length);
+        InetAddress[] rotated = new InetAddress[addresses.length];
+        for (int i = 0; i < addresses.length; i++) {
+            rotated[i] = addresses[(start + i) % addresses.length];
+        }
+        return rotated;
+    }
+
+    private static synchronized ExecutorService executor() {
+        if (refresher == null) {
+            refresher = Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "Unirest DNS Refresh");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return refresher;
+    }
+
+    private class Entry {
+        private final InetAddress[] addresses;
+        private final Exception failure;
+        private final long created;
+        private final long expires;
+        private final AtomicInteger next = new AtomicInteger();
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        Entry(InetAddress[] addresses, Exception failure, long created, long expires) {
+            this.addresses = addresses;
+            this.failure = failure;
+            this.created = created;
+            this.expires = expires;
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() >= expires;
+        }
+
+        boolean shouldRefresh() {
+            return refreshAhead > 0
+                    && !refreshing.get()
+                    && System.currentTimeMillis() >= created + (long) ((expires - created) * (1 - refreshAhead));
+        }
+    }
+
+    public static class Builder {
+        private HostResolver delegate = HostResolver.SYSTEM;
+        private long ttl = TimeUnit.SECONDS.toMillis(60);
+        private long negativeTtl = TimeUnit.SECONDS.toMillis(5);
+        private double refreshAhead = 0.2;
+        private boolean rotate = true;
+        private final Map<String, InetAddress[]> overrides = new HashMap<>();
+
+        public CachingHostResolver build() {
+            return new CachingHostResolver(this);
+        }
+
+        /**
+         * The resolver which answers cache misses. The default is the JVM resolver.
+         * @param resolver the resolver to cache
+         * @return this builder.
+         */
+        public Builder delegate(HostResolver resolver) {
+            this.delegate = resolver;
+            return this;
+        }
+
+        /**
+         * How long successful lookups are kept. The default is 60 seconds.
+         * @param number a number
+         * @param units the TimeUnits of the number
+         * @return this builder.
+         */
+        public Builder ttl(long number, TimeUnit units) {
+            this.ttl = units.toMillis(number);
+            return this;
+        }
+
+        /**
+         * How long failed lookups are kept. The default is 5 seconds.
+         * @param number a number
+         * @param units the TimeUnits of the number
+         * @return this builder.
+         */
+        public Builder negativeTtl(long number, TimeUnit units) {
+            this.negativeTtl = units.toMillis(number);
+            return this;
+        }
+
+        /**
+         * Refresh entries in the background once this fraction of their ttl remains. The default is 0.2.
+         * Zero disables refreshing and entries are looked up again on the request path once they expire.
+         * @param fraction a fraction of the ttl between 0 and 1
+         * @return this builder.
+         */
+        public Builder refreshAhead(double fraction) {
+            if (fraction < 0 || fraction >= 1) {
+                throw new UnirestConfigException("The refresh ahead fraction must be at least 0 and less than 1");
+            }
+            this.refreshAhead = fraction;
+            return this;
+        }
+
+        /**
+         * Rotate the order of the addresses of a host on every lookup so that new connections are spread across
+         * all of them. The default is true.
+         * @param value a bool is its true or not.
+         * @return this builder.
+         */
+        public Builder rotate(boolean value) {
+            this.rotate = value;
+            return this;
+        }
+
+        /**
+         * Always resolve a host to the given addresses without asking the delegate.
+         * @param host the host name
+         * @param addresses the ip addresses of the host
+         * @return this builder.
+         */
+        public Builder override(String host, String... addresses) {
+            List<InetAddress> parsed = new ArrayList<>();
+            for (String address : addresses) {
+                parsed.add(toAddress(host, address));
+            }
+            overrides.put(host.toLowerCase(Locale.ROOT), parsed.toArray(new InetAddress[0]));
+            return this;
+        }
+
+        /**
+         * Load overrides from a file in the format of /etc/hosts: an ip address followed by one or more host names
+         * on each line. Everything after a # is a comment. A host listed on several lines gets all of the addresses.
+         * @param hostsFile the path to the file
+         * @return this builder.
+         */
+        public Builder overrides(Path hostsFile) {
+            Map<String, List<InetAddress>> parsed = new HashMap<>();
+            try {
+                for (String line : Files.readAllLines(hostsFile, StandardCharsets.UTF_8)) {
+                    int comment = line.indexOf('#');
+                    String[] parts = (comment < 0 ? line : line.substring(0, comment)).trim().split("\\s+");
+                    for (int i = 1; i < parts.length; i++) {
+                        parsed.computeIfAbsent(parts[i].toLowerCase(Locale.ROOT), k -> new ArrayList<>())
+                                .add(toAddress(parts[i], parts[0]));
+                    }
+                }
+            } catch (IOException e) {
+                throw new UnirestConfigException(e);
+            }
+            parsed.forEach((host, list) -> overrides.put(host, list.toArray(new InetAddress[0])));
+            return this;
+        }
+
+        private static InetAddress toAddress(String host, String address) {
+            if (!InetAddressUtils.isIPv4Address(address) && !InetAddressUtils.isIPv6Address(address)) {
+                throw new UnirestConfigException("Not an ip address: " + address);
+            }
+            try {
+                // an ip literal is parsed, not looked up
+                return InetAddress.getByAddress(host, InetAddress.getByName(address).getAddress());
+            } catch (UnknownHostException e) {
+                throw new UnirestConfigException(e);
+            }
+        }
+    }
+}
@@ -25,6 +25,8 @@
 
 package kong.unirest;
 
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 import java.util.stream.Stream;
 
@@ -57,6 +59,29 @@ public interface Client {
         return request(request, transformer);
     }
 
+    /**
+     * Make a request whose body is read by the caller after the request has returned, like a lazy Stream.
+     * The connection is held until the body has been read to the end or closed, and the response is never cached.
+     * By default this is a normal request, which suits clients that have read the whole body before transforming it.
+     * @param <T> The type of the body
+     * @param request the prepared request object
+     * @param transformer the function to transform the response
+     * @return a HttpResponse with a transformed body
+     */
+    default <T> HttpResponse<T> stream(HttpRequest request, Function<RawResponse, HttpResponse<T>> transformer) {
+        return request(request, transformer, Object.class);
+    }
+
+    /**
+     * Resolve the hosts of the origins and open pooled connections to them ahead of the first request.
+     * @param origins the origins to connect to, in the form of scheme://host[:port]
+     * @param connectionsPerHost the number of connections to open per origin
+     * @return a future which completes when the connections are open
+     */
+    default CompletableFuture<Void> warmUp(Collection<String> origins, int connectionsPerHost) {
+        return CompletableFuture.completedFuture(null);
+    }
+
     /**
      * @return a stream of exceptions possibly thrown while closing all the things.
      */
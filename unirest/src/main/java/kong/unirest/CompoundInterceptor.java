@@ -54,7 +54,7 @@ class CompoundInterceptor implements Interceptor {
                 .map(i -> Optional.ofNullable(i.onFail(e, request, config)))
                 .flatMap(Util::stream)
                 .findFirst()
-                .orElseThrow(() -> new UnirestException(e));
+                .orElseThrow(() -> Util.toUnirestException(e));
     }
 
     int size() {
@@ -27,6 +27,7 @@ package kong.unirest;
 
 import kong.unirest.apache.ApacheAsyncClient;
 import kong.unirest.apache.ApacheClient;
+import kong.unirest.apache.Transport;
 import org.apache.http.HttpRequestInterceptor;
 import org.apache.http.client.HttpClient;
 import org.apache.http.nio.client.HttpAsyncClient;
@@ -38,9 +39,16 @@ import java.nio.charset.StandardCharsets;
 import java.security.KeyStore;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -54,6 +62,10 @@ public class Config {
     public static final int DEFAULT_MAX_PER_ROUTE = 20;
     public static final int DEFAULT_CONNECT_TIMEOUT = 10000;
     public static final int DEFAULT_SOCKET_TIMEOUT = 60000;
+    public static final long DEFAULT_IDLE_CONNECTION_TIMEOUT = 30000;
+    public static final long DEFAULT_EVICTION_INTERVAL = 5000;
+    public static final int DEFAULT_VALIDATE_AFTER_INACTIVITY = 2000;
+    public static final long DEFAULT_RACE_STAGGER = 250;
 
     private Optional<Client> client = Optional.empty();
     private Optional<AsyncClient> asyncClient = Optional.empty();
@@ -64,6 +76,7 @@ public class Config {
     private Proxy proxy;
     private int connectionTimeout;
     private int socketTimeout;
+    private int requestTimeout;
     private int maxTotal;
     private int maxPerRoute;
     private boolean followRedirects;
@@ -90,6 +103,38 @@ public class Config {
     private CacheManager cache;
     private boolean retry = false;
     private int maxRetries;
+    private Executor completionExecutor;
+    private ForkJoinPool jsonParsePool;
+    private int ioThreadCount;
+    private long selectInterval;
+    private SocketOptions socketOptions;
+    private Map<String, SocketOptions> routeSocketOptions = new LinkedHashMap<>();
+    private Map<String, Integer> routeConcurrency = new LinkedHashMap<>();
+    private Map<String, Integer> routeReservations = new LinkedHashMap<>();
+    private long idleConnectionTimeout;
+    private long evictionInterval;
+    private long keepAliveTimeout;
+    private Map<String, Long> routeKeepAliveTimeouts = new LinkedHashMap<>();
+    private int validateAfterInactivity;
+    private boolean adaptiveValidation;
+    private double predictiveThreshold;
+    private int predictiveConnections;
+    private HostResolver hostResolver;
+    private boolean raceConnections;
+    private long raceStagger;
+    private int tlsSessionCacheSize;
+    private int tlsSessionTimeout;
+    private TlsContext tlsContext;
+    private String keystoreLocation;
+    private KeyStore truststore;
+    private String truststoreLocation;
+    private String truststorePassword;
+    private long tlsWatchInterval;
+    private boolean unifiedConnectionPool;
+    private boolean stripedConnectionPool;
+    private Transport transport;
+    private AsyncLimits asyncLimits;
+    private AsyncLimiter asyncLimiter;
 
     public Config() {
         setDefaults();
@@ -102,6 +147,7 @@ public class Config {
         headers = new Headers();
         connectionTimeout = DEFAULT_CONNECTION_TIMEOUT;
         socketTimeout = DEFAULT_SOCKET_TIMEOUT;
+        requestTimeout = 0;
         maxTotal = DEFAULT_MAX_CONNECTIONS;
         maxPerRoute = DEFAULT_MAX_PER_ROUTE;
         followRedirects = true;
@@ -118,6 +164,38 @@ public class Config {
         interceptor = new CompoundInterceptor();
         retry = false;
         maxRetries = 10;
+        completionExecutor = null;
+        jsonParsePool = null;
+        ioThreadCount = 0;
+        selectInterval = 1000;
+        socketOptions = null;
+        routeSocketOptions = new LinkedHashMap<>();
+        routeConcurrency = new LinkedHashMap<>();
+        routeReservations = new LinkedHashMap<>();
+        idleConnectionTimeout = DEFAULT_IDLE_CONNECTION_TIMEOUT;
+        evictionInterval = DEFAULT_EVICTION_INTERVAL;
+        keepAliveTimeout = -1;
+        routeKeepAliveTimeouts = new LinkedHashMap<>();
+        validateAfterInactivity = DEFAULT_VALIDATE_AFTER_INACTIVITY;
+        adaptiveValidation = true;
+        predictiveThreshold = 0;
+        predictiveConnections = 0;
+        hostResolver = HostResolver.SYSTEM;
+        raceConnections = false;
+        raceStagger = DEFAULT_RACE_STAGGER;
+        tlsSessionCacheSize = -1;
+        tlsSessionTimeout = -1;
+        resetTlsContext();
+        keystoreLocation = null;
+        truststore = null;
+        truststoreLocation = null;
+        truststorePassword = null;
+        tlsWatchInterval = 0;
+        unifiedConnectionPool = false;
+        stripedConnectionPool = false;
+        transport = null;
+        asyncLimits = null;
+        asyncLimiter = null;
 
         // this.objectMapper = Optional.of(new JsonObjectMapper());
         try {
@@ -252,11 +330,13 @@ public class Config {
      *
      * @param ssl the SSLContext to use for custom ssl context
      * @return this config object
-     * @throws UnirestConfigException if a keystore was already configured.
+     * @throws UnirestConfigException if a keystore or a trust store was already configured.
      */
     public Config sslContext(SSLContext ssl) {
         verifySecurityConfig(this.keystore);
+        verifySecurityConfig(this.truststore);
         this.sslContext = ssl;
+        resetTlsContext();
         return this;
     }
 
@@ -267,6 +347,7 @@ public class Config {
      */
     public Config hostnameVerifier(HostnameVerifier value) {
         this.hostnameVerifier = value;
+        resetTlsContext();
         return this;
     }
 
@@ -277,6 +358,7 @@ public class Config {
      */
     public Config ciphers(String... values) {
         this.ciphers = values;
+        resetTlsContext();
         return this;
     }
 
@@ -287,17 +369,20 @@ public class Config {
      */
     public Config protocols(String... values) {
         this.protocols = values;
+        resetTlsContext();
         return this;
     }
 
     private void verifySecurityConfig(Object thing) {
         if(thing != null){
-            throw new UnirestConfigException("You may only configure a SSLContext OR a Keystore, but not both");
+            throw new UnirestConfigException("You may only configure a SSLContext OR a Keystore and Trust store, but not both");
         }
     }
 
     /**
-     * Set a custom keystore
+     * Set a custom keystore.
+     * This may be called while the clients are running, new connections then use the new client certificate
+     * while existing connections carry on until they close.
      *
      * @param store the keystore to use for a custom ssl context
      * @param password the password for the store
@@ -308,6 +393,8 @@ public class Config {
         verifySecurityConfig(this.sslContext);
         this.keystore = store;
         this.keystorePassword = () -> password;
+        this.keystoreLocation = null;
+        onKeyMaterialChanged();
         return this;
     }
 
@@ -325,9 +412,11 @@ public class Config {
             this.keystorePassword = () -> password;
             this.keystore = KeyStore.getInstance("PKCS12");
             this.keystore.load(keyStoreStream, keystorePassword.get().toCharArray());
+            this.keystoreLocation = fileLocation;
         } catch (Exception e) {
             throw new UnirestConfigException(e);
         }
+        onKeyMaterialChanged();
         return this;
     }
 
@@ -337,12 +426,91 @@ public class Config {
             this.keystorePassword = () -> password;
             this.keystore = KeyStore.getInstance("PKCS12");
             this.keystore.load(fileStream, keystorePassword.get().toCharArray());
+            this.keystoreLocation = null;
         } catch (Exception e) {
             throw new UnirestConfigException(e);
         }
+        onKeyMaterialChanged();
         return this;
     }
 
+    /**
+     * Set a trust store with the certificates trusted for servers, in place of the JVM default.
+     * This may be called while the clients are running, new connections then use the new trust store
+     * while existing connections carry on until they close.
+     *
+     * @param store the trust store
+     * @return this config object
+     * @throws UnirestConfigException if a SSLContext was already configured.
+     */
+    public Config trustStore(KeyStore store) {
+        verifySecurityConfig(this.sslContext);
+        this.truststore = store;
+        this.truststoreLocation = null;
+        this.truststorePassword = null;
+        onTrustMaterialChanged();
+        return this;
+    }
+
+    /**
+     * Set a trust store via a file path. Must be a valid PKCS12 file.
+     * See {@link #trustStore(KeyStore)}
+     *
+     * @param fileLocation the path to the trust store
+     * @param password the password for the store
+     * @return this config object
+     * @throws UnirestConfigException if a SSLContext was already configured.
+     */
+    public Config trustStore(String fileLocation, String password) {
+        verifySecurityConfig(this.sslContext);
+        this.truststore = TlsContext.load(fileLocation, password);
+        this.truststoreLocation = fileLocation;
+        this.truststorePassword = password;
+        onTrustMaterialChanged();
+        return this;
+    }
+
+    /**
+     * Watch the keystore and trust store files given by path and reload them when they change,
+     * so that rotated certificates are picked up by new connections without restarting the clients.
+     * Default is 0 (not watched).
+     *
+     * @param interval how often the files are checked for changes
+     * @param unit the time unit of the interval
+     * @return this config object
+     */
+    public Config watchTlsFiles(long interval, TimeUnit unit) {
+        this.tlsWatchInterval = unit.toMillis(interval);
+        if (tlsContext != null) {
+            tlsContext.close();
+            tlsContext.watch(tlsWatchInterval);
+        }
+        return this;
+    }
+
+    private synchronized void onKeyMaterialChanged() {
+        if (tlsContext != null && tlsContext.isReloadable()) {
+            tlsContext.reloadKeyMaterial(keystore, getKeyStorePassword());
+        } else {
+            resetTlsContext();
+        }
+    }
+
+    private synchronized void onTrustMaterialChanged() {
+        if (tlsContext != null && tlsContext.isReloadable()) {
+            tlsContext.reloadTrustMaterial(truststore);
+        } else {
+            resetTlsContext();
+        }
+    }
+
+    private synchronized void resetTlsContext() {
+        if (tlsContext != null) {
+            tlsContext.close();
+        }
+        tlsContext = null;
+    }
+
     /**
      * Set the connection timeout
      *
@@ -367,6 +535,19 @@ public class Config {
         return this;
     }
 
+    /**
+     * Set the default deadline for requests. Unlike the socket and connect timeouts it covers the whole request:
+     * waiting for a connection, retries, redirects and reading the body. A request not done by then is aborted
+     * and its connection closed, and it fails with a UnirestTimeoutException.
+     *
+     * @param inMillies The total time a request may take (in milliseconds). Default is 0, no deadline.
+     * @return this config object
+     */
+    public Config requestTimeout(int inMillies) {
+        this.requestTimeout = inMillies;
+        return this;
+    }
+
     /**
      * Set the concurrency levels
      *
@@ -381,6 +562,94 @@ public class Config {
         return this;
     }
 
+    /**
+     * Override the per route connection limit for some routes.
+     * The route is an origin (https://reports.example.com) or a pattern where * stands for any part of
+     * the host name (https://*.reports.example.com, or *.example.com for any scheme). Where several match,
+     * the first one set wins.
+     * Patterns are only applied by the lock-striped pool, origins are applied by every pool.
+     *
+     * @param route the origin or pattern of the routes
+     * @param perRoute the connection limit for each matching route
+     * @return this config object
+     */
+    public Config concurrency(String route, int perRoute) {
+        Objects.requireNonNull(route, "Route may not be null");
+        validateClientsNotRunning();
+        this.routeConcurrency.put(route, perRoute);
+        return this;
+    }
+
+    /**
+     * Reserve part of the total connection limit for some routes. Other routes can not use the reserved connections,
+     * so a burst of traffic elsewhere can not starve these routes of connections. All the routes matching
+     * a pattern share one reservation, and connections beyond it come out of the rest of the total.
+     * Reservations are applied by the lock-striped pool only (see stripedConnectionPool), and together
+     * they must leave some of the total for the other routes.
+     *
+     * @param route the origin or pattern of the routes, as for concurrency(String, int)
+     * @param connections the number of connections to reserve
+     * @return this config object
+     */
+    public Config reserveConnections(String route, int connections) {
+        Objects.requireNonNull(route, "Route may not be null");
+        validateClientsNotRunning();
+        this.routeReservations.put(route, connections);
+        return this;
+    }
+
+    /**
+     * Set the number of IO dispatcher threads for the async client.
+     *
+     * @param count the number of dispatcher threads. Default is 0 which uses one thread per available processor.
+     * @return this config object
+     */
+    public Config ioThreadCount(int count) {
+        validateClientsNotRunning();
+        this.ioThreadCount = count;
+        return this;
+    }
+
+    /**
+     * Set how often the async IO reactor wakes up to check for timed out sessions and pending requests.
+     *
+     * @param inMillies the select interval in milliseconds. Default is 1000.
+     * @return this config object
+     */
+    public Config selectInterval(long inMillies) {
+        validateClientsNotRunning();
+        this.selectInterval = inMillies;
+        return this;
+    }
+
+    /**
+     * Set the socket options used for every new connection of both the sync and async clients.
+     *
+     * @param options the socket options
+     * @return this config object
+     */
+    public Config socketOptions(SocketOptions options) {
+        validateClientsNotRunning();
+        this.socketOptions = options;
+        return this;
+    }
+
+    /**
+     * Override the socket options for connections to a single route.
+     * Note that the async IO reactor applies its socket options to every connection,
+     * so route overrides only apply to the synchronous client.
+     *
+     * @param origin the scheme, host and optional port of the route (e.g. https://api.example.com)
+     * @param options the socket options for the route
+     * @return this config object
+     */
+    public Config socketOptions(String origin, SocketOptions options) {
+        Objects.requireNonNull(origin, "Origin may not be null");
+        validateClientsNotRunning();
+        this.routeSocketOptions.put(origin, options);
+        return this;
+    }
+
     /**
      * Clear default headers
      * @return this config object
@@ -546,6 +815,7 @@ public class Config {
      */
     public Config verifySsl(boolean value) {
         this.verifySsl = value;
+        resetTlsContext();
         return this;
     }
 
@@ -574,7 +844,8 @@ public class Config {
 
     /**
      * Automaticly retry certain recoverable errors like socket timeouts. Up to 4 times
-     * Note that currently this only works on synchronous calls.
+     * Asynchronous calls only replay safe requests (GET, HEAD, OPTIONS, TRACE), once,
+     * when they fail on a connection the server had already closed.
      * Default is true
      *
      * @param value a bool is its true or not.
@@ -652,6 +923,246 @@ public class Config {
         return this;
     }
 
+    /**
+     * Pooled connections which have been idle for longer than this are closed by the shared connection evictor.
+     * Connections the server has announced a shorter Keep-Alive timeout for are closed once that expires.
+     *
+     * @param duration the max idle time. Default is 30 seconds. Zero or less turns off idle eviction.
+     * @param unit the time unit of the duration
+     * @return this config object
+     */
+    public Config idleConnectionTimeout(long duration, TimeUnit unit) {
+        validateClientsNotRunning();
+        this.idleConnectionTimeout = unit.toMillis(duration);
+        return this;
+    }
+
+    /**
+     * How often the shared connection evictor checks the pools of this config for idle and expired connections.
+     * Each check is randomly spread by up to 20% so pools don't all reconnect at the same moment.
+     *
+     * @param duration the check interval. Default is 5 seconds.
+     * @param unit the time unit of the duration
+     * @return this config object
+     */
+    public Config evictionInterval(long duration, TimeUnit unit) {
+        long millis = unit.toMillis(duration);
+        if (millis <= 0) {
+            throw new UnirestConfigException("The eviction interval must be greater than zero");
+        }
+        validateClientsNotRunning();
+        this.evictionInterval = millis;
+        return this;
+    }
+
+    /**
+     * The longest a pooled connection is kept alive between requests.
+     * Servers announcing a shorter Keep-Alive timeout are honored (minus a small safety margin),
+     * so the client stops reusing a connection before the server closes it.
+     *
+     * @param duration the max keep alive time. Default is -1 which keeps connections until the server says otherwise.
+     * @param unit the time unit of the duration
+     * @return this config object
+     */
+    public Config keepAliveTimeout(long duration, TimeUnit unit) {
+        validateClientsNotRunning();
+        this.keepAliveTimeout = unit.toMillis(duration);
+        return this;
+    }
+
+    /**
+     * Override the max keep alive time for a single route. Useful for servers which close idle
+     * connections sooner than they announce, or don't announce it at all.
+     *
+     * @param origin the scheme, host and optional port of the route (e.g. https://api.example.com)
+     * @param duration the max keep alive time for the route
+     * @param unit the time unit of the duration
+     * @return this config object
+     */
+    public Config keepAliveTimeout(String origin, long duration, TimeUnit unit) {
+        Objects.requireNonNull(origin, "Origin may not be null");
+        validateClientsNotRunning();
+        this.routeKeepAliveTimeouts.put(origin, unit.toMillis(duration));
+        return this;
+    }
+
+    /**
+     * Pooled connections which have been idle for longer than this are checked for staleness before they are
+     * leased to the synchronous client. Lower values avoid more stale connection errors at the cost of a check.
+     *
+     * @param inMillies the inactivity period in milliseconds. Default is 2000. Zero or less disables the check.
+     * @return this config object
+     */
+    public Config validateAfterInactivity(int inMillies) {
+        validateClientsNotRunning();
+        this.validateAfterInactivity = inMillies;
+        return this;
+    }
+
+    /**
+     * Adapt the validate-after-inactivity period to the servers being called.
+     * Each stale connection failure halves the period, and it slowly grows back to the configured
+     * value while connections keep being reused without errors.
+     * Default is true
+     *
+     * @param value a bool is its true or not.
+     * @return this config object
+     */
+    public Config adaptiveValidation(boolean value) {
+        validateClientsNotRunning();
+        this.adaptiveValidation = value;
+        return this;
+    }
+
+    /**
+     * Set the resolver used to look up the addresses of hosts when new connections are opened.
+     * The default is the JVM resolver. See {@link CachingHostResolver} for one which keeps lookups off the request path.
+     *
+     * @param resolver the host resolver
+     * @return this config object
+     */
+    public Config hostResolver(HostResolver resolver) {
+        Objects.requireNonNull(resolver, "Resolver may not be null");
+        validateClientsNotRunning();
+        this.hostResolver = resolver;
+        return this;
+    }
+
+    /**
+     * Tune the cache of TLS sessions shared by both clients. Cached sessions (and session tickets) let new
+     * connections to a host resume a previous session instead of doing a full handshake.
+     *
+     * @param size the max number of cached sessions. Zero means no limit. Default is the JVM default (20480).
+     * @param timeout how long a cached session may be resumed. Zero means no limit. Default is the JVM default (24 hours).
+     * @param unit the time unit of the timeout
+     * @return this config object
+     */
+    public Config tlsSessionCache(int size, long timeout, TimeUnit unit) {
+        validateClientsNotRunning();
+        this.tlsSessionCacheSize = size;
+        this.tlsSessionTimeout = (int) unit.toSeconds(timeout);
+        resetTlsContext();
+        return this;
+    }
+
+    /**
+     * Build the clients of this config on a shared transport rather than on connection pools of their own.
+     * The connection settings of this config (pool sizes, ssl, socket options, resolver, keep-alive and eviction)
+     * are then replaced by those of the transport, while all request settings still apply.
+     * The clients hold a reference to the transport which they release when this config is shut down.
+     *
+     * @param value the shared transport, or null for clients with their own pools
+     * @return this config object
+     */
+    public Config transport(Transport value) {
+        validateClientsNotRunning();
+        this.transport = value;
+        return this;
+    }
+
+    /**
+     * Bound the asynchronous requests in flight and waiting, globally and per route.
+     * Without limits every async request goes straight to the client and waits there
+     * for a connection in an unbounded queue.
+     * Default is no limits
+     *
+     * @param limits the limits and what to do with requests beyond them
+     * @return this config object
+     */
+    public Config asyncLimits(AsyncLimits limits) {
+        validateClientsNotRunning();
+        this.asyncLimits = limits;
+        this.asyncLimiter = null;
+        return this;
+    }
+
+    /**
+     * Run synchronous requests on the asynchronous client and wait for them, rather than on a client of their own.
+     * Both kinds of requests then share one IO reactor, one connection pool and one set of connection limits,
+     * so an application using both does not open twice the connections to every host.
+     * Synchronous requests must not then be made from within async callbacks that run on the IO threads
+     * (use a completionExecutor for that).
+     * There is then no Apache HttpClient: getClient().getClient() returns the HttpAsyncClient,
+     * so code casting it to an HttpClient must not turn this on.
+     * Default is false
+     *
+     * @param value a bool is its true or not.
+     * @return this config object
+     */
+    public Config unifiedConnectionPool(boolean value) {
+        validateClientsNotRunning();
+        this.unifiedConnectionPool = value;
+        return this;
+    }
+
+    /**
+     * Use a lock-striped connection pool for the synchronous client. Each route keeps its own idle connections
+     * and leasing or releasing an idle connection takes no lock, where the default pool serialises every lease
+     * and release on one lock. This pays off with many threads making requests on many cores.
+     * Limits and connection TTL are the same as for the default pool.
+     * Default is false
+     *
+     * @param value a bool is its true or not.
+     * @return this config object
+     */
+    public Config stripedConnectionPool(boolean value) {
+        validateClientsNotRunning();
+        this.stripedConnectionPool = value;
+        return this;
+    }
+
+    /**
+     * Race new connections across all the addresses of a host rather than trying them one at a time.
+     * The next address is tried when the stagger passes without the previous attempts connecting,
+     * and the first to connect wins. With several addresses a blackholed one then only costs the stagger
+     * instead of the connect timeout. The address which won is tried first for the next connection.
+     * Default is false
+     *
+     * @param value a bool is its true or not.
+     * @return this config object
+     */
+    public Config raceConnections(boolean value) {
+        validateClientsNotRunning();
+        this.raceConnections = value;
+        return this;
+    }
+
+    /**
+     * Race new connections across all the addresses of a host with the given stagger between attempts.
+     * See {@link #raceConnections(boolean)}
+     *
+     * @param stagger the delay before the next address is tried. Default is 250 milliseconds.
+     * @param unit the time unit of the stagger
+     * @return this config object
+     */
+    public Config raceConnections(long stagger, TimeUnit unit) {
+        if (stagger <= 0) {
+            throw new UnirestConfigException("The stagger must be greater than zero");
+        }
+        raceConnections(true);
+        this.raceStagger = unit.toMillis(stagger);
+        return this;
+    }
+
+    /**
+     * Open extra pooled connections ahead of demand. When a route has no idle connections left and the share of its
+     * pool that is leased or pending reaches the threshold, up to the given number of connections are opened in the
+     * background so that the next requests do not pay for the connect and handshake.
+     *
+     * @param threshold the pool utilization between 0 and 1 which triggers a pre-connect. Zero or less disables it.
+     * @param connections the number of connections to open at a time for the route.
+     * @return this config object
+     */
+    public Config predictiveConnect(double threshold, int connections) {
+        validateClientsNotRunning();
+        if (threshold > 1) {
+            throw new UnirestConfigException("The predictive connect threshold must be between 0 and 1");
+        }
+        this.predictiveThreshold = threshold;
+        this.predictiveConnections = connections;
+        return this;
+    }
+
     /**
      * Automatically retry synchronous requests on 429/529 responses with the Retry-After response header
      * Default is false
@@ -690,6 +1201,33 @@ public class Config {
         return this;
     }
 
+    /**
+     * Set an Executor to complete asynchronous requests on.
+     * When set, the response transformation (e.g. JSON parsing), interceptors and callbacks of
+     * async requests run on this executor and the Apache IO dispatcher threads only move bytes.
+     * Something like a ForkJoinPool or a thread-per-task executor works well here.
+     * The default is null, which completes requests directly on the IO dispatcher thread.
+     *
+     * @param executor the executor to complete async requests on
+     * @return this config object
+     */
+    public Config completionExecutor(Executor executor) {
+        this.completionExecutor = executor;
+        return this;
+    }
+
+    /**
+     * Set the pool that large json arrays are parsed on by asJsonParallel.
+     * The default is null, which uses the common ForkJoinPool.
+     *
+     * @param pool the pool to parse on
+     * @return this config object
+     */
+    public Config jsonParsePool(ForkJoinPool pool) {
+        this.jsonParsePool = pool;
+        return this;
+    }
+
     /**
      * Register the client with a system shutdown hook. Note that this creates up to two threads
      * (depending on if you use both sync and async clients). default is false
@@ -775,6 +1313,27 @@ public class Config {
         }
     }
 
+    /**
+     * Build both clients now rather than on the first request, resolve the hosts of the origins
+     * and open pooled connections to them in both the synchronous and the asynchronous pool.
+     *
+     * @param origins the origins to connect to, in the form of scheme://host[:port]
+     * @param connectionsPerHost the number of connections to open per origin and client. Capped by the max per route.
+     * @return a future which completes when the connections are open
+     */
+    public CompletableFuture<Void> warmUp(Collection<String> origins, int connectionsPerHost) {
+        Objects.requireNonNull(origins, "Origins may not be null");
+        if (!client.isPresent()) {
+            buildClient();
+        }
+        if (!asyncClientIsReady()) {
+            buildAsyncClient();
+        }
+        return CompletableFuture.allOf(
+                client.get().warmUp(origins, connectionsPerHost),
+                asyncClient.get().warmUp(origins, connectionsPerHost));
+    }
+
     /**
      * Return the current Client. One will be build if it does
      * not yet exist.
@@ -796,9 +1355,23 @@ public class Config {
         }
     }
 
+    /**
+     * @return the client without the response cache, for results which may not be cached
+     */
+    Client getUnwrappedClient() {
+        if (!client.isPresent()) {
+            buildClient();
+        }
+        return client.get();
+    }
+
     private synchronized void buildClient() {
         if (!client.isPresent()) {
-            client = Optional.of(clientBuilder.apply(this));
+            if (unifiedConnectionPool) {
+                client = Optional.of(new BlockingClient(this));
+            } else {
+                client = Optional.of(clientBuilder.apply(this));
+            }
         }
     }
 
@@ -822,6 +1395,17 @@ public class Config {
         return cache.wrapAsync(asyncClient.get());
     }
 
+    /**
+     * @return the async client without the response cache, for the blocking client of the unified pool
+     * and for results which may not be cached
+     */
+    AsyncClient getUnwrappedAsyncClient() {
+        if (!asyncClientIsReady()) {
+            buildAsyncClient();
+        }
+        return asyncClient.get();
+    }
+
     private boolean asyncClientIsReady() {
         return asyncClient
                 .map(AsyncClient::isRunning)
@@ -892,6 +1476,57 @@ public class Config {
         return socketTimeout;
     }
 
+    /**
+     * @return the default total deadline of a request in milliseconds, or 0 for none
+     *         default: 0
+     */
+    public int getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    /**
+     * @return the number of async IO dispatcher threads, 0 meaning one per available processor
+     */
+    public int getIoThreadCount() {
+        return ioThreadCount;
+    }
+
+    /**
+     * @return the async IO reactor select interval in milliseconds
+     *         default: 1000
+     */
+    public long getSelectInterval() {
+        return selectInterval;
+    }
+
+    /**
+     * @return the default socket options, or null if the library defaults are used
+     */
+    public SocketOptions getSocketOptions() {
+        return socketOptions;
+    }
+
+    /**
+     * @return per route connection limits keyed by route origin or pattern
+     */
+    public Map<String, Integer> getRouteConcurrency() {
+        return Collections.unmodifiableMap(routeConcurrency);
+    }
+
+    /**
+     * @return reserved connections keyed by route origin or pattern
+     */
+    public Map<String, Integer> getRouteReservations() {
+        return Collections.unmodifiableMap(routeReservations);
+    }
+
+    /**
+     * @return socket option overrides keyed by route origin
+     */
+    public Map<String, SocketOptions> getRouteSocketOptions() {
+        return Collections.unmodifiableMap(routeSocketOptions);
+    }
+
     /**
      * @return a security keystore if one has been provided
      */
@@ -1007,6 +1642,203 @@ public class Config {
         return ttl;
     }
 
+    /**
+     * @return the time in milliseconds after which idle pooled connections are evicted
+     *         default: 30000
+     */
+    public long getIdleConnectionTimeout() {
+        return idleConnectionTimeout;
+    }
+
+    /**
+     * @return the time in milliseconds between checks for idle and expired connections
+     *         default: 5000
+     */
+    public long getEvictionInterval() {
+        return evictionInterval;
+    }
+
+    /**
+     * @return the max time in milliseconds to keep a connection alive, -1 meaning as long as the server allows
+     */
+    public long getKeepAliveTimeout() {
+        return keepAliveTimeout;
+    }
+
+    /**
+     * @return keep alive overrides in milliseconds keyed by route origin
+     */
+    public Map<String, Long> getRouteKeepAliveTimeouts() {
+        return Collections.unmodifiableMap(routeKeepAliveTimeouts);
+    }
+
+    /**
+     * @return the inactivity period in milliseconds after which pooled connections are checked before reuse
+     *         default: 2000
+     */
+    public int getValidateAfterInactivity() {
+        return validateAfterInactivity;
+    }
+
+    /**
+     * @return if the validate-after-inactivity period adapts to observed stale connections
+     *         default: true
+     */
+    public boolean isAdaptiveValidation() {
+        return adaptiveValidation;
+    }
+
+    /**
+     * @return the resolver used to look up the addresses of hosts
+     *         default: HostResolver.SYSTEM
+     */
+    public HostResolver getHostResolver() {
+        return hostResolver;
+    }
+
+    /**
+     * @return the path the keystore was loaded from, if it was loaded from a path
+     */
+    public String getKeystoreLocation() {
+        return keystoreLocation;
+    }
+
+    /**
+     * @return the trust store if one has been provided
+     */
+    public KeyStore getTrustStore() {
+        return truststore;
+    }
+
+    /**
+     * @return the path the trust store was loaded from, if it was loaded from a path
+     */
+    public String getTrustStoreLocation() {
+        return truststoreLocation;
+    }
+
+    /**
+     * @return the password for the trust store, if it was loaded from a path
+     */
+    public String getTrustStorePassword() {
+        return truststorePassword;
+    }
+
+    /**
+     * @return how often in milliseconds the keystore files are checked for changes
+     *         default: 0 (not watched)
+     */
+    public long getTlsWatchInterval() {
+        return tlsWatchInterval;
+    }
+
+    /**
+     * @return the max number of cached TLS sessions
+     *         default: -1 (the JVM default)
+     */
+    public int getTlsSessionCacheSize() {
+        return tlsSessionCacheSize;
+    }
+
+    /**
+     * @return how long in seconds a cached TLS session may be resumed
+     *         default: -1 (the JVM default)
+     */
+    public int getTlsSessionTimeout() {
+        return tlsSessionTimeout;
+    }
+
+    /**
+     * The TLS context shared by both clients, built from the ssl settings of this config on first use.
+     * It is kept across a reset so that cached sessions survive the clients being rebuilt,
+     * and is rebuilt when any of the ssl settings change.
+     *
+     * @return the TLS context with its handshake counts
+     */
+    public synchronized TlsContext getTlsContext() {
+        if (tlsContext == null) {
+            tlsContext = new TlsContext(this);
+            tlsContext.watch(tlsWatchInterval);
+        }
+        return tlsContext;
+    }
+
+    /**
+     * @return the limits on asynchronous requests, or null for none
+     *         default: null
+     */
+    public AsyncLimits getAsyncLimits() {
+        return asyncLimits;
+    }
+
+    /**
+     * The limiter keeping the asynchronous requests within the async limits, with its live counts.
+     *
+     * @return the limiter, or null when there are no limits
+     */
+    public synchronized AsyncLimiter getAsyncLimiter() {
+        if (asyncLimiter == null && asyncLimits != null) {
+            asyncLimiter = new AsyncLimiter(asyncLimits);
+        }
+        return asyncLimiter;
+    }
+
+    /**
+     * @return the shared transport the clients are built on, if any
+     *         default: null
+     */
+    public Transport getTransport() {
+        return transport;
+    }
+
+    /**
+     * @return if synchronous requests run on the asynchronous client and its connection pool
+     *         default: false
+     */
+    public boolean isUnifiedConnectionPool() {
+        return unifiedConnectionPool;
+    }
+
+    /**
+     * @return if the synchronous client uses the lock-striped connection pool
+     *         default: false
+     */
+    public boolean isStripedConnectionPool() {
+        return stripedConnectionPool;
+    }
+
+    /**
+     * @return if new connections race across the addresses of a host
+     *         default: false
+     */
+    public boolean isRaceConnections() {
+        return raceConnections;
+    }
+
+    /**
+     * @return the delay in milliseconds before the next address of a host is tried when racing connections
+     *         default: 250
+     */
+    public long getRaceStagger() {
+        return raceStagger;
+    }
+
+    /**
+     * @return the pool utilization which triggers a predictive pre-connect
+     *         default: 0 (disabled)
+     */
+    public double getPredictiveThreshold() {
+        return predictiveThreshold;
+    }
+
+    /**
+     * @return the number of connections opened by a predictive pre-connect
+     *         default: 0
+     */
+    public int getPredictiveConnections() {
+        return predictiveConnections;
+    }
+
     /**
      * @return the currently configured Interceptor
      */
@@ -1080,4 +1912,18 @@ public class Config {
     public int maxRetries() {
         return maxRetries;
     }
+
+    /**
+     * @return the executor async requests are completed on, or null if they complete on the IO dispatcher thread
+     */
+    public Executor getCompletionExecutor() {
+        return completionExecutor;
+    }
+
+    /**
+     * @return the pool large json arrays are parsed on. default: the common ForkJoinPool
+     */
+    public ForkJoinPool getJsonParsePool() {
+        return jsonParsePool == null ? ForkJoinPool.commonPool() : jsonParsePool;
+    }
 }
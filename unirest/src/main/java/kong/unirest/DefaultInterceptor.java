@@ -40,7 +40,7 @@ class DefaultInterceptor implements Interceptor {
 
     @Override
     public HttpResponse<?> onFail(Exception e, HttpRequestSummary request, Config config) {
-        throw new UnirestException(e);
+        throw Util.toUnirestException(e);
     }
 
     Consumer<HttpResponse<?>> getConsumer(){
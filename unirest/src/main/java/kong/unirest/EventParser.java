@@ -0,0 +1,196 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of unirest-java are held by Kong Inc (c) 2013.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package kong.unirest;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Parses a text/event-stream as the buffers come off the connection.
+ * Lines are gathered as bytes across buffer boundaries, and data lines are appended to the pending event
+ * as bytes, so the data is decoded once when the event is dispatched.
+ */
+class EventParser {
+    private static final byte[] DATA = "data".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] EVENT = "event".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ID = "id".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] RETRY = "retry".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+    interface Listener {
+        void onEvent(ServerSentEvent event);
+
+        void onId(String id);
+
+        void onRetry(long millis);
+    }
+
+    private final Listener listener;
+    private byte[] line = new byte[256];
+    private int lineLength;
+    private byte[] data = new byte[256];
+    private int dataLength;
+    private boolean hasData;
+    private String event;
+    private String lastEventId;
+    private boolean afterCr;
+    private int bomChecked;
+
+    EventParser(String lastEventId, Listener listener) {
+        this.lastEventId = lastEventId;
+        this.listener = listener;
+    }
+
+    void feed(ByteBuffer buffer) {
+        while (buffer.hasRemaining()) {
+            byte b = buffer.get();
+            if (bomChecked < BOM.length) {
+                if (b == BOM[bomChecked]) {
+                    append(b);
+                    if (++bomChecked == BOM.length) {
+                        lineLength = 0;
+                    }
+                    continue;
+                }
+                bomChecked = BOM.length;
+            }
+            if (b == '\n') {
+                if (!afterCr) {
+                    endLine();
+                }
+                afterCr = false;
+            } else if (b == '\r') {
+                endLine();
+                afterCr = true;
+            } else {
+                afterCr = false;
+                append(b);
+            }
+        }
+    }
+
+    private void append(byte b) {
+        if (lineLength == line.length) {
+            line = Arrays.copyOf(line, line.length * 2);
+        }
+        line[lineLength++] = b;
+    }
+
+    private void endLine() {
+        int length = lineLength;
+        lineLength = 0;
+        if (length == 0) {
+            dispatch();
+            return;
+        }
+        if (line[0] == ':') {
+            return;
+        }
+        int colon = indexOf(line, length, (byte) ':');
+        int nameEnd = colon < 0 ? length : colon;
+        int valueStart = colon < 0 ? length : colon + 1;
+        if (valueStart < length && line[valueStart] == ' ') {
+            valueStart++;
+        }
+        if (is(DATA, nameEnd)) {
+            appendData(valueStart, length);
+        } else if (is(EVENT, nameEnd)) {
+            event = text(valueStart, length);
+        } else if (is(ID, nameEnd)) {
+            if (indexOf(line, length, (byte) 0) < 0) {
+                lastEventId = text(valueStart, length);
+            }
+        } else if (is(RETRY, nameEnd)) {
+            retry(valueStart, length);
+        }
+    }
+
+    private void appendData(int from, int to) {
+        int needed = dataLength + (to - from) + 1;
+        if (needed > data.length) {
+            data = Arrays.copyOf(data, Math.max(needed, data.length * 2));
+        }
+        if (hasData) {
+            data[dataLength++] = '\n';
+        }
+        System.arraycopy(line, from, data, dataLength, to - from);
+        dataLength += to - from;
+        hasData = true;
+    }
+
+    private void retry(int from, int to) {
+        if (from == to || to - from > 18) {
+            return;
+        }
+        long millis = 0;
+        for (int i = from; i < to; i++) {
+            if (line[i] < '0' || line[i] > '9') {
+                return;
+            }
+            millis = millis * 10 + (line[i] - '0');
+        }
+        listener.onRetry(millis);
+    }
+
+    private void dispatch() {
+        // the id only counts as seen once its event is complete, even one without data
+        listener.onId(lastEventId);
+        if (hasData) {
+            String type = event == null || event.isEmpty() ? "message" : event;
+            String text = new String(data, 0, dataLength, StandardCharsets.UTF_8);
+            listener.onEvent(new ServerSentEvent(lastEventId, type, text));
+        }
+        dataLength = 0;
+        hasData = false;
+        event = null;
+    }
+
+    private boolean is(byte[] name, int length) {
+        if (name.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (line[i] != name[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String text(int from, int to) {
+        return new String(line, from, to - from, StandardCharsets.UTF_8);
+    }
+
+    private static int indexOf(byte[] bytes, int length, byte b) {
+        for (int i = 0; i < length; i++) {
+            if (bytes[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,406 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of unirest-java are held by Kong Inc (c) 2013.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package kong.unirest;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Subscribes to a text/event-stream over one long lived connection at a time.
+ * Events are parsed as they come off the connection, and when the connection drops it is
+ * reopened after the retry interval (which the server may change with a retry: field),
+ * sending the id of the last event seen as Last-Event-ID so the server can carry on where it left off.
+ * <p>
+ * A 204 response ends the subscription, and so does any other response that is not a 200 text/event-stream,
+ * except for 502, 503 and 504 which are retried.
+ * Handlers are run one at a time and in order on the executor, which is the completion executor of the config
+ * (or else the IO thread of the client) unless another is given.
+ * The socket timeout still applies to a quiet stream, so a server which goes quiet for long should send comments
+ * to keep it open; otherwise it is simply reconnected.
+ */
+public class EventSource implements AutoCloseable {
+    private static ScheduledExecutorService scheduler;
+
+    private final BaseRequest<?> request;
+    private final List<Consumer<ServerSentEvent>> handlers = new CopyOnWriteArrayList<>();
+    private final Map<String, List<Consumer<ServerSentEvent>>> typed = new ConcurrentHashMap<>();
+    private final List<Consumer<HttpResponse<?>>> openHandlers = new CopyOnWriteArrayList<>();
+    private final List<Consumer<Throwable>> errorHandlers = new CopyOnWriteArrayList<>();
+    private final CompletableFuture<Void> future = new CompletableFuture<>();
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger wip = new AtomicInteger();
+    private Executor executor;
+    private volatile long retry = 3000;
+    private volatile String lastEventId;
+    private volatile boolean started;
+    private volatile boolean open;
+    private volatile boolean closed;
+    private volatile CompletableFuture<?> pending;
+    private volatile Flow.Subscription subscription;
+    private volatile ScheduledFuture<?> reconnect;
+
+    EventSource(BaseRequest<?> request, Config config) {
+        this.request = request;
+        this.executor = config.getCompletionExecutor();
+    }
+
+    /**
+     * Handle every event
+     * @param handler the handler
+     * @return this event source
+     */
+    public EventSource onEvent(Consumer<ServerSentEvent> handler) {
+        handlers.add(handler);
+        return this;
+    }
+
+    /**
+     * Handle the events of one type
+     * @param type the event type. Events without one are of the type "message"
+     * @param handler the handler
+     * @return this event source
+     */
+    public EventSource onEvent(String type, Consumer<ServerSentEvent> handler) {
+        typed.computeIfAbsent(type, k -> new CopyOnWriteArrayList<>()).add(handler);
+        return this;
+    }
+
+    /**
+     * Called each time the stream is (re)connected
+     * @param handler gets the response. Its body belongs to the event source and must not be subscribed to
+     * @return this event source
+     */
+    public EventSource onOpen(Consumer<HttpResponse<?>> handler) {
+        openHandlers.add(handler);
+        return this;
+    }
+
+    /**
+     * Called each time the connection fails or drops, and when a handler throws.
+     * The stream is reconnected afterwards unless it has ended for good.
+     * @param handler the handler
+     * @return this event source
+     */
+    public EventSource onError(Consumer<Throwable> handler) {
+        errorHandlers.add(handler);
+        return this;
+    }
+
+    /**
+     * Run the handlers on this executor. They are still run one at a time and in order.
+     * @param executor the executor
+     * @return this event source
+     */
+    public EventSource executor(Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * How long to wait before reconnecting, until the server says otherwise. Default is 3 seconds
+     * @param millis the wait in milliseconds
+     * @return this event source
+     */
+    public EventSource retry(long millis) {
+        this.retry = millis;
+        return this;
+    }
+
+    /**
+     * Resume a stream from an event seen earlier
+     * @param id the id sent as Last-Event-ID on the first connection
+     * @return this event source
+     */
+    public EventSource lastEventId(String id) {
+        this.lastEventId = id;
+        return this;
+    }
+
+    /**
+     * Open the stream
+     * @return this event source
+     */
+    public EventSource connect() {
+        if (!started) {
+            started = true;
+            request.headerReplace("Accept", "text/event-stream");
+            request.headerReplace("Cache-Control", "no-cache");
+            request.headerReplace("Accept-Encoding", "identity");
+            connectNow();
+        }
+        return this;
+    }
+
+    /**
+     * End the subscription and close the connection
+     */
+    @Override
+    public void close() {
+        closed = true;
+        open = false;
+        ScheduledFuture<?> r = reconnect;
+        if (r != null) {
+            r.cancel(false);
+        }
+        CompletableFuture<?> p = pending;
+        if (p != null) {
+            p.cancel(true);
+        }
+        Flow.Subscription s = subscription;
+        if (s != null) {
+            s.cancel();
+        }
+        future.complete(null);
+    }
+
+    /**
+     * @return a future which completes when the subscription ends, either by closing it or because the server ended it
+     */
+    public CompletableFuture<Void> future() {
+        return future;
+    }
+
+    /**
+     * @return is there a connection open right now
+     */
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * @return has the subscription ended
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * @return the id of the last event seen, sent as Last-Event-ID when reconnecting
+     */
+    public String getLastEventId() {
+        return lastEventId;
+    }
+
+    private void connectNow() {
+        if (closed) {
+            return;
+        }
+        if (lastEventId == null || lastEventId.isEmpty()) {
+            request.headers.remove("Last-Event-ID");
+        } else {
+            request.headerReplace("Last-Event-ID", lastEventId);
+        }
+        CompletableFuture<HttpResponse<Flow.Publisher<ByteBuffer>>> call;
+        try {
+            call = request.asPublisher();
+        } catch (RuntimeException e) {
+            fail(e);
+            return;
+        }
+        pending = call;
+        call.whenComplete((response, e) -> {
+            pending = null;
+            if (e != null) {
+                reconnect(e);
+            } else {
+                opened(response);
+            }
+        });
+    }
+
+    private void opened(HttpResponse<Flow.Publisher<ByteBuffer>> response) {
+        int status = response.getStatus();
+        if (closed || status == 204) {
+            Util.discard(response.getBody());
+            close();
+        } else if (status == 502 || status == 503 || status == 504) {
+            Util.discard(response.getBody());
+            reconnect(new UnirestException("The event stream is unavailable: " + status));
+        } else if (status != 200 || !isEventStream(response)) {
+            Util.discard(response.getBody());
+            fail(new UnirestException("Not an event stream: " + status + " " + response.getHeaders().getFirst("Content-Type")));
+        } else {
+            open = true;
+            deliver(() -> openHandlers.forEach(h -> h.accept(response)));
+            response.getBody().subscribe(new Connection());
+        }
+    }
+
+    private boolean isEventStream(HttpResponse<?> response) {
+        String type = response.getHeaders().getFirst("Content-Type");
+        return type != null && type.trim().toLowerCase().startsWith("text/event-stream");
+    }
+
+    private void reconnect(Throwable e) {
+        open = false;
+        subscription = null;
+        if (closed) {
+            return;
+        }
+        if (e != null) {
+            deliver(() -> errorHandlers.forEach(h -> h.accept(e)));
+        }
+        try {
+            reconnect = scheduler().schedule(this::connectNow, retry, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ex) {
+            fail(ex);
+            return;
+        }
+        if (closed) {
+            reconnect.cancel(false);
+        }
+    }
+
+    private void fail(Throwable e) {
+        open = false;
+        if (closed) {
+            return;
+        }
+        closed = true;
+        deliver(() -> errorHandlers.forEach(h -> h.accept(e)));
+        future.completeExceptionally(e);
+    }
+
+    private void deliver(Runnable task) {
+        tasks.add(task);
+        if (wip.getAndIncrement() == 0) {
+            Executor e = executor;
+            if (e == null) {
+                drain();
+                return;
+            }
+            try {
+                e.execute(this::drain);
+            } catch (RejectedExecutionException ex) {
+                drain();
+            }
+        }
+    }
+
+    private void drain() {
+        do {
+            Runnable task = tasks.poll();
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                for (Consumer<Throwable> h : errorHandlers) {
+                    try {
+                        h.accept(e);
+                    } catch (RuntimeException ignored) {
+                        // nothing left to tell
+                    }
+                }
+            }
+        } while (wip.decrementAndGet() != 0);
+    }
+
+    private static synchronized ScheduledExecutorService scheduler() {
+        if (scheduler == null) {
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> {
+                Thread t = new Thread(r, "Unirest Event Source");
+                t.setDaemon(true);
+                return t;
+            });
+            executor.setRemoveOnCancelPolicy(true);
+            scheduler = executor;
+        }
+        return scheduler;
+    }
+
+    /**
+     * One connection of the stream. Its parser is thrown away with it, so a half received event is dropped,
+     * but the last event id and retry interval carry over to the next connection.
+     */
+    private class Connection implements Flow.Subscriber<ByteBuffer>, EventParser.Listener {
+        private final EventParser parser = new EventParser(lastEventId, this);
+        private Flow.Subscription s;
+
+        @Override
+        public void onSubscribe(Flow.Subscription s) {
+            this.s = s;
+            subscription = s;
+            if (closed) {
+                s.cancel();
+            } else {
+                s.request(1);
+            }
+        }
+
+        @Override
+        public void onNext(ByteBuffer item) {
+            parser.feed(item);
+            if (!closed) {
+                s.request(1);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            reconnect(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            reconnect(null);
+        }
+
+        @Override
+        public void onEvent(ServerSentEvent event) {
+            List<Consumer<ServerSentEvent>> forType = typed.get(event.getEvent());
+            deliver(() -> {
+                handlers.forEach(h -> h.accept(event));
+                if (forType != null) {
+                    forType.forEach(h -> h.accept(event));
+                }
+            });
+        }
+
+        @Override
+        public void onId(String id) {
+            lastEventId = id;
+        }
+
+        @Override
+        public void onRetry(long millis) {
+            retry = millis;
+        }
+    }
+}
@@ -73,7 +73,7 @@ public class Headers {
         add(name, value);
     }
 
-    private void remove(String name) {
+    void remove(String name) {
         headers.removeIf(h -> isName(h, name));
     }
 
@@ -25,15 +25,20 @@
 
 package kong.unirest;
 
+import org.json.gsc.JSONObject;
+
 import java.io.File;
+import java.nio.ByteBuffer;
 import java.nio.file.CopyOption;
 import java.time.Instant;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
     The primary request builder used to create a request. This will be completed after calling one of
@@ -189,6 +194,33 @@ public interface HttpRequest<R extends HttpRequest>  {
      */
     R connectTimeout(int millies);
 
+    /**
+     * Set a total deadline for this request, covering the wait for a connection, retries, redirects and reading the body
+     * @param millies the time in millies, 0 for no deadline
+     * @return this request builder
+     */
+    R requestTimeout(int millies);
+
+    /**
+     * Set the priority of this request when it has to wait for a connection from a saturated route.
+     * Only the lock-striped pool of the sync client (see Config.stripedConnectionPool) and the async
+     * limiter's queue (see Config.asyncLimits) order waiting requests by it. The default pools ignore it.
+     * Default is NORMAL
+     * @param priority the priority
+     * @return this request builder
+     */
+    R priority(Priority priority);
+
+    /**
+     * Set the tenant this request is made for. Waiting requests of the same priority
+     * take turns by tenant, so one tenant's burst does not hold up the others.
+     * Only the lock-striped pool of the sync client (see Config.stripedConnectionPool) takes turns by tenant,
+     * the default pools ignore it.
+     * @param tenant the tenant name
+     * @return this request builder
+     */
+    R tenant(String tenant);
+
     /**
      * Set a proxy for this request. Only basic proxies are supported.
      * @param host the host url
@@ -243,12 +275,54 @@ public interface HttpRequest<R extends HttpRequest>  {
      */
     CompletableFuture<HttpResponse<byte[]>> asBytesAsync(Callback<byte[]> callback);
 
+    /**
+     * Executes the request asynchronously and returns the response as soon as its head arrives,
+     * with the body published as it is read off the connection.
+     * The connection is only read from as fast as the subscriber requests, so the body must be subscribed to
+     * (or the subscription cancelled) to give the connection back. Only one subscriber is allowed,
+     * it is signalled on the IO thread of the client, and the bytes are passed on as received without decompressing them.
+     * @return a CompletableFuture of a response
+     */
+    CompletableFuture<HttpResponse<Flow.Publisher<ByteBuffer>>> asPublisher();
+
     /**
      * Executes the request and returns the response with the body mapped into a JsonNode
      * @return response
      */
     HttpResponse<JsonNode> asJson();
 
+    /**
+     * Executes the request and returns the response with only the values on the paths of the projection
+     * picked out of the body, skipping over the rest of it without parsing it
+     * @param projection the paths to pick out
+     * @return response
+     */
+    HttpResponse<JsonNode> asJson(JsonProjection projection);
+
+    /**
+     * Executes the request asynchronously and returns the response with only the values on the paths
+     * of the projection picked out of the body
+     * @param projection the paths to pick out
+     * @return a CompletableFuture of a response
+     */
+    CompletableFuture<HttpResponse<JsonNode>> asJsonAsync(JsonProjection projection);
+
+    /**
+     * Executes the request and returns the response with the body mapped into a JsonNode.
+     * A large top level array is cut into chunks of whole elements which are parsed in parallel
+     * on the json parse pool of the config; anything else is parsed as usual.
+     * @return response
+     */
+    HttpResponse<JsonNode> asJsonParallel();
+
+    /**
+     * Executes the request asynchronously and returns the response with the body mapped into a JsonNode.
+     * The body is parsed on the json parse pool of the config rather than the IO thread,
+     * with a large top level array parsed in parallel chunks.
+     * @return a CompletableFuture of a response
+     */
+    CompletableFuture<HttpResponse<JsonNode>> asJsonParallelAsync();
+
     /**
      * Executes the request asynchronously and returns the response with the body mapped into a JsonNode
      * @return a CompletableFuture of a response
@@ -262,6 +336,25 @@ public interface HttpRequest<R extends HttpRequest>  {
      */
     CompletableFuture<HttpResponse<JsonNode>> asJsonAsync(Callback<JsonNode> callback);
 
+    /**
+     * Executes the request and returns the response with the body as a stream of json objects,
+     * read one at a time as the stream is consumed. The body may be newline delimited json
+     * (application/x-ndjson) or a top level json array.
+     * The connection is held until the stream is read to the end or closed, so close it when done
+     * (e.g. with try-with-resources) and check the status before reading an error body as records.
+     * @return a response with a stream of the records
+     */
+    HttpResponse<Stream<JSONObject>> asJsonStream();
+
+    /**
+     * Executes the request asynchronously and hands each record of a newline delimited json or top level json array
+     * body to the consumer as soon as it has been read. The consumer is called on the IO thread of the client,
+     * and the connection is only read as fast as it keeps up. The body of a response which is not a success is not read.
+     * @param record the consumer of the records
+     * @return a CompletableFuture of a response with the number of records as the body
+     */
+    CompletableFuture<HttpResponse<Long>> asJsonStreamAsync(Consumer<JSONObject> record);
+
     /**
      * Executes the request and returns the response with the body mapped into T by a configured ObjectMapper
      * @param responseClass the class to return. This will be passed to the ObjectMapper
@@ -368,6 +461,27 @@ public interface HttpRequest<R extends HttpRequest>  {
     <T> PagedList<T> asPaged(Function<HttpRequest, HttpResponse> mappingFunction,
                              Function<HttpResponse<T>, String> linkExtractor);
 
+    /**
+     * Page through a listing asynchronously. Pages are fetched ahead of the consumer
+     * (following RFC 8288 Link headers by default, or in parallel by page number or offset)
+     * and handed over in order as a stream or a Flow.Publisher, so each page can be collected once it is processed.
+     * Nothing is sent until the pages are consumed.
+     *
+     * @param <T> the type of response.
+     * @param call makes the async call for each page e.g. HttpRequest::asJsonAsync
+     * @return a pager to configure and consume
+     */
+    <T> Pager<T> pages(Function<HttpRequest<?>, CompletableFuture<HttpResponse<T>>> call);
+
+    /**
+     * Subscribe to a text/event-stream (Server-Sent Events).
+     * The stream is parsed as it arrives and reconnected when it drops, resuming from the last event seen.
+     * Nothing is sent until the event source is connected.
+     *
+     * @return an event source to configure and connect
+     */
+    EventSource events();
+
     /**
      * Executes the request and returns the response without parsing the body
      * @return the basic HttpResponse
@@ -436,6 +550,34 @@ public interface HttpRequest<R extends HttpRequest>  {
      */
     int getConnectTimeout();
 
+    /**
+     * @return the total deadline for this request in milliseconds, or 0 for none
+     */
+    default int getRequestTimeout() {
+        return 0;
+    }
+
+    /**
+     * @return the time by which the request must be done, counted from when it was first sent, or null for no deadline
+     */
+    default Instant getDeadline() {
+        return null;
+    }
+
+    /**
+     * @return the priority of this request when waiting for a connection
+     */
+    default Priority getPriority() {
+        return Priority.NORMAL;
+    }
+
+    /**
+     * @return the tenant of this request, or null
+     */
+    default String getTenant() {
+        return null;
+    }
+
     /**
      * @return the proxy for this request
      */
@@ -27,11 +27,13 @@ package kong.unirest;
 
 import java.io.File;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Flow;
 
 class HttpRequestBody extends BaseRequest<HttpRequestWithBody> implements HttpRequestWithBody {
 
@@ -107,6 +109,11 @@ class HttpRequestBody extends BaseRequest<HttpRequestWithBody> implements HttpRe
 		return new HttpRequestUniBody(this).body(body);
 	}
 
+	@Override
+	public RequestBodyEntity body(Flow.Publisher<ByteBuffer> body) {
+		return new HttpRequestUniBody(this).body(body);
+	}
+
 	@Override
 	public RequestBodyEntity body(Object body) {
 		return new HttpRequestUniBody(this).body(body);
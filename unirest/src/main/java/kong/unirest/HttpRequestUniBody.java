@@ -26,8 +26,10 @@
 package kong.unirest;
 
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.util.Optional;
+import java.util.concurrent.Flow;
 
 class HttpRequestUniBody extends BaseRequest<RequestBodyEntity> implements RequestBodyEntity {
 
@@ -59,6 +61,12 @@ class HttpRequestUniBody extends BaseRequest<RequestBodyEntity> implements Reque
 	}
 	 */
 
+	@Override
+	public RequestBodyEntity body(Flow.Publisher<ByteBuffer> publisherBody) {
+		this.body = new PublisherBody(publisherBody);
+		return this;
+	}
+
 	@Override
 	public RequestBodyEntity body(Object objectBody) {
 		if (objectBody instanceof String) {
@@ -27,9 +27,11 @@ package kong.unirest;
 
 import java.io.File;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.util.Collection;
 import java.util.Map;
+import java.util.concurrent.Flow;
 
 /**
  * A request Builder for POST and PUT operations with a body.
@@ -146,6 +148,15 @@ public interface HttpRequestWithBody extends HttpRequest<HttpRequestWithBody> {
      */
     RequestBodyEntity body(InputStream body);
 
+    /**
+     * Stream the body from a reactive publisher as it produces it.
+     * The body is sent chunked, and the publisher is only asked for more as the connection can take it.
+     *
+     * @param body the publisher of the body
+     * @return a RequestBodyEntity version of the builder with a body
+     */
+    RequestBodyEntity body(Flow.Publisher<ByteBuffer> body);
+
     /**
      * Set a Object as the body of the request. This will be serialized with one of the following methods:
      * - Strings are native
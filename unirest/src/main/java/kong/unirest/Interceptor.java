@@ -65,6 +65,7 @@ public interface Interceptor {
      *      - SSL/TLS errors
      *
      * The default implimentation simply wraps the exception in a UnirestException and throws it.
+     * Subclasses of UnirestException (like a UnirestTimeoutException) are thrown as they are.
      * It is possible to return a different response object from the original if you really
      * didn't want to every throw exceptions. Keep in mind that this is a lie
      *
@@ -76,6 +77,6 @@ public interface Interceptor {
      * @return a alternative response.
      */
     default HttpResponse<?> onFail(Exception e, HttpRequestSummary request, Config config) throws UnirestException {
-        throw new UnirestException(e);
+        throw Util.toUnirestException(e);
     }
 }
@@ -51,6 +51,16 @@ public class JsonNode {
         }
     }
 
+    private JsonNode(JSONArray array, boolean isArray) {
+        jsonObject = new JSONObject();
+        jsonArray = array;
+        this.array = isArray;
+    }
+
+    static JsonNode of(JSONArray array) {
+        return new JsonNode(array, true);
+    }
+
     public JSONObject getObject() {
         return this.jsonObject;
     }
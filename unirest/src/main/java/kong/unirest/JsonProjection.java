@@ -0,0 +1,592 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of unirest-java are held by Kong Inc (c) 2013.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package kong.unirest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A set of paths to pick out of a json document. The document is scanned once, and only the values
+ * on the paths are copied out, so everything else is skipped over without being parsed or kept.
+ * The result is the document pruned down to those values, keeping their place in it, e.g. the paths
+ * $.data[*].id and $.meta.next make {"data":[{"id":1},{"id":2}],"meta":{"next":"..."}}.
+ * Array elements with nothing picked out of them are left out.
+ * <p>
+ * Paths may be JSON Pointers (/data/0/id, where a * segment matches any key or element)
+ * or simple paths ($.data[*].id, data[0].id, $['meta'].next). A projection can be reused across requests.
+ */
+public class JsonProjection {
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private final Step root = new Step();
+
+    private JsonProjection(Collection<String> paths) {
+        if (paths.isEmpty()) {
+            throw new UnirestConfigException("A projection needs at least one path");
+        }
+        for (String path : paths) {
+            Step step = root;
+            for (Object segment : parse(path)) {
+                step = step.child(segment);
+            }
+            step.terminal = true;
+        }
+    }
+
+    /**
+     * @param paths JSON Pointers or simple paths
+     * @return a projection of the paths
+     */
+    public static JsonProjection of(String... paths) {
+        return new JsonProjection(Arrays.asList(paths));
+    }
+
+    /**
+     * @param paths JSON Pointers or simple paths
+     * @return a projection of the paths
+     */
+    public static JsonProjection of(Collection<String> paths) {
+        return new JsonProjection(paths);
+    }
+
+    /**
+     * Scan a document for the paths
+     * @param json the UTF-8 document
+     * @return the document pruned down to the values on the paths
+     */
+    public JsonNode apply(InputStream json) {
+        String pruned = new Scanner(json).scan(root);
+        return new JsonNode(pruned.isEmpty() ? null : pruned);
+    }
+
+    /**
+     * Scan a document in the given charset for the paths.
+     * Anything but UTF-8 (or plain ASCII) is decoded up front, and its UTF-8 bytes are scanned.
+     * @param json the document
+     * @param charset the charset of the document
+     * @return the document pruned down to the values on the paths
+     */
+    public JsonNode apply(InputStream json, String charset) {
+        if (isUtf8(charset)) {
+            return apply(json);
+        }
+        try {
+            String text = new String(json.readAllBytes(), charset);
+            return apply(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (IOException e) {
+            throw new UnirestException(e);
+        }
+    }
+
+    private static boolean isUtf8(String charset) {
+        if (charset == null) {
+            return true;
+        }
+        try {
+            Charset cs = Charset.forName(charset);
+            return cs.equals(StandardCharsets.UTF_8) || cs.equals(StandardCharsets.US_ASCII);
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private static List<Object> parse(String path) {
+        List<Object> segments = new ArrayList<>();
+        if (path.startsWith("/")) {
+            for (String s : path.substring(1).split("/", -1)) {
+                String name = s.replace("~1", "/").replace("~0", "~");
+                segments.add("*".equals(name) ? Step.ANY : name);
+            }
+            return segments;
+        }
+        int i = path.startsWith("$") ? 1 : 0;
+        while (i < path.length()) {
+            char c = path.charAt(i);
+            if (c == '.') {
+                i++;
+            } else if (c == '[') {
+                int end = path.indexOf(']', i);
+                if (end < 0) {
+                    throw new UnirestConfigException("Unclosed [ in " + path);
+                }
+                String inner = path.substring(i + 1, end).trim();
+                if ("*".equals(inner)) {
+                    segments.add(Step.ANY);
+                } else if (inner.startsWith("'") || inner.startsWith("\"")) {
+                    segments.add(inner.substring(1, inner.length() - 1));
+                } else {
+                    try {
+                        segments.add(Integer.parseInt(inner));
+                    } catch (NumberFormatException e) {
+                        throw new UnirestConfigException("Bad index [" + inner + "] in " + path);
+                    }
+                }
+                i = end + 1;
+            } else {
+                int end = i;
+                while (end < path.length() && path.charAt(end) != '.' && path.charAt(end) != '[') {
+                    end++;
+                }
+                String name = path.substring(i, end);
+                segments.add("*".equals(name) ? Step.ANY : name);
+                i = end;
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * One step down the paths. A name also matches the element with that index,
+     * as JSON Pointers do not tell keys and indexes apart.
+     */
+    private static class Step {
+        static final Object ANY = new Object();
+
+        private final List<byte[]> names = new ArrayList<>();
+        private final List<String> nameStrings = new ArrayList<>();
+        private final List<Step> named = new ArrayList<>();
+        private int[] indexes = new int[0];
+        private Step[] indexed = new Step[0];
+        private Step any;
+        private boolean terminal;
+
+        Step child(Object segment) {
+            if (segment == ANY) {
+                if (any == null) {
+                    any = new Step();
+                }
+                return any;
+            }
+            if (segment instanceof Integer) {
+                return index((Integer) segment);
+            }
+            String name = (String) segment;
+            int at = nameStrings.indexOf(name);
+            if (at >= 0) {
+                return named.get(at);
+            }
+            Step step = new Step();
+            names.add(name.getBytes(StandardCharsets.UTF_8));
+            nameStrings.add(name);
+            named.add(step);
+            if (!name.isEmpty() && name.chars().allMatch(Character::isDigit) && name.length() < 10) {
+                int index = Integer.parseInt(name);
+                Step existing = find(index);
+                if (existing == null) {
+                    indexes = Arrays.copyOf(indexes, indexes.length + 1);
+                    indexed = Arrays.copyOf(indexed, indexed.length + 1);
+                    indexes[indexes.length - 1] = index;
+                    indexed[indexed.length - 1] = step;
+                }
+            }
+            return step;
+        }
+
+        private Step index(int index) {
+            Step existing = find(index);
+            if (existing != null) {
+                return existing;
+            }
+            Step step = new Step();
+            indexes = Arrays.copyOf(indexes, indexes.length + 1);
+            indexed = Arrays.copyOf(indexed, indexed.length + 1);
+            indexes[indexes.length - 1] = index;
+            indexed[indexed.length - 1] = step;
+            return step;
+        }
+
+        private Step find(int index) {
+            for (int i = 0; i < indexes.length; i++) {
+                if (indexes[i] == index) {
+                    return indexed[i];
+                }
+            }
+            return null;
+        }
+
+        Step byName(byte[] key, int length, String decoded) {
+            for (int i = 0; i < names.size(); i++) {
+                if (decoded != null ? decoded.equals(nameStrings.get(i)) : same(names.get(i), key, length)) {
+                    return named.get(i);
+                }
+            }
+            return null;
+        }
+
+        private static boolean same(byte[] name, byte[] key, int length) {
+            if (name.length != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (name[i] != key[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Walks the document with the set of steps that the current position matches.
+     * Keys are compared as bytes, and only decoded when they contain escapes.
+     */
+    private static class Scanner {
+        private final InputStream in;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private int position;
+        private int limit;
+        private byte[] out = new byte[1024];
+        private int length;
+        private byte[] key = new byte[64];
+        private int keyLength;
+
+        Scanner(InputStream in) {
+            this.in = in;
+        }
+
+        String scan(Step root) {
+            List<Step> states = new ArrayList<>();
+            states.add(root);
+            if (peek() == 0xEF) {
+                next();
+                next();
+                next();
+            }
+            skipSpace();
+            if (peek() < 0) {
+                return "";
+            }
+            value(states);
+            // read to the end, so the connection is given back rather than aborted
+            skipSpace();
+            if (peek() >= 0) {
+                throw unexpected(peek());
+            }
+            return new String(out, 0, length, StandardCharsets.UTF_8);
+        }
+
+        private boolean value(List<Step> states) {
+            skipSpace();
+            for (Step s : states) {
+                if (s.terminal) {
+                    skipValue(true);
+                    return true;
+                }
+            }
+            int b = peek();
+            if (b == '{') {
+                return object(states);
+            } else if (b == '[') {
+                return array(states);
+            }
+            skipValue(false);
+            return false;
+        }
+
+        private boolean object(List<Step> states) {
+            int start = length;
+            write(next());
+            boolean any = false;
+            while (true) {
+                skipSpace();
+                int b = next();
+                if (b == '}') {
+                    break;
+                } else if (b == ',') {
+                    continue;
+                } else if (b != '"') {
+                    throw unexpected(b);
+                }
+                boolean escaped = readKey();
+                skipSpace();
+                if (next() != ':') {
+                    throw new UnirestException("Expected : after a key in the json");
+                }
+                List<Step> matched = byKey(states, escaped);
+                if (matched == null) {
+                    skipSpace();
+                    skipValue(false);
+                    continue;
+                }
+                int mark = length;
+                if (any) {
+                    write(',');
+                }
+                write('"');
+                for (int i = 0; i < keyLength; i++) {
+                    write(key[i]);
+                }
+                write('"');
+                write(':');
+                if (value(matched)) {
+                    any = true;
+                } else {
+                    length = mark;
+                }
+            }
+            write('}');
+            if (!any) {
+                length = start;
+            }
+            return any;
+        }
+
+        private boolean array(List<Step> states) {
+            int start = length;
+            write(next());
+            boolean any = false;
+            int index = 0;
+            while (true) {
+                skipSpace();
+                int b = peek();
+                if (b == ']') {
+                    next();
+                    break;
+                } else if (b == ',') {
+                    next();
+                    continue;
+                }
+                List<Step> matched = byIndex(states, index++);
+                if (matched == null) {
+                    skipValue(false);
+                    continue;
+                }
+                int mark = length;
+                if (any) {
+                    write(',');
+                }
+                if (value(matched)) {
+                    any = true;
+                } else {
+                    length = mark;
+                }
+            }
+            write(']');
+            if (!any) {
+                length = start;
+            }
+            return any;
+        }
+
+        private List<Step> byKey(List<Step> states, boolean escaped) {
+            String decoded = escaped ? decodeKey() : null;
+            List<Step> matched = null;
+            for (Step s : states) {
+                matched = add(matched, s.byName(key, keyLength, decoded));
+                matched = add(matched, s.any);
+            }
+            return matched;
+        }
+
+        private List<Step> byIndex(List<Step> states, int index) {
+            List<Step> matched = null;
+            for (Step s : states) {
+                matched = add(matched, s.find(index));
+                matched = add(matched, s.any);
+            }
+            return matched;
+        }
+
+        private static List<Step> add(List<Step> list, Step step) {
+            if (step == null) {
+                return list;
+            }
+            if (list == null) {
+                list = new ArrayList<>(2);
+            }
+            list.add(step);
+            return list;
+        }
+
+        /**
+         * Reads the raw bytes of a key, after its opening quote, up to and past its closing quote
+         * @return does the key hold escapes
+         */
+        private boolean readKey() {
+            keyLength = 0;
+            boolean escaped = false;
+            while (true) {
+                int b = next();
+                if (b == '"') {
+                    return escaped;
+                }
+                if (keyLength == key.length) {
+                    key = Arrays.copyOf(key, key.length * 2);
+                }
+                key[keyLength++] = (byte) b;
+                if (b == '\\') {
+                    escaped = true;
+                    if (keyLength == key.length) {
+                        key = Arrays.copyOf(key, key.length * 2);
+                    }
+                    key[keyLength++] = (byte) next();
+                }
+            }
+        }
+
+        private String decodeKey() {
+            String raw = new String(key, 0, keyLength, StandardCharsets.UTF_8);
+            StringBuilder sb = new StringBuilder(raw.length());
+            for (int i = 0; i < raw.length(); i++) {
+                char c = raw.charAt(i);
+                if (c != '\\' || i + 1 >= raw.length()) {
+                    sb.append(c);
+                    continue;
+                }
+                char e = raw.charAt(++i);
+                switch (e) {
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'n': sb.append('\n'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'u':
+                        if (i + 4 < raw.length()) {
+                            sb.append((char) Integer.parseInt(raw.substring(i + 1, i + 5), 16));
+                            i += 4;
+                        }
+                        break;
+                    default: sb.append(e);
+                }
+            }
+            return sb.toString();
+        }
+
+        private void skipValue(boolean copy) {
+            skipSpace();
+            int b = peek();
+            if (b == '"') {
+                skipString(copy);
+            } else if (b == '{' || b == '[') {
+                int depth = 0;
+                do {
+                    b = peek();
+                    if (b == '"') {
+                        skipString(copy);
+                        continue;
+                    }
+                    next();
+                    if (copy) {
+                        write(b);
+                    }
+                    if (b == '{' || b == '[') {
+                        depth++;
+                    } else if (b == '}' || b == ']') {
+                        depth--;
+                    }
+                } while (depth > 0);
+            } else {
+                while (true) {
+                    b = peek();
+                    if (b < 0 || b == ',' || b == '}' || b == ']' || isSpace(b)) {
+                        return;
+                    }
+                    next();
+                    if (copy) {
+                        write(b);
+                    }
+                }
+            }
+        }
+
+        private void skipString(boolean copy) {
+            int b = next();
+            if (copy) {
+                write(b);
+            }
+            while (true) {
+                b = next();
+                if (copy) {
+                    write(b);
+                }
+                if (b == '\\') {
+                    b = next();
+                    if (copy) {
+                        write(b);
+                    }
+                } else if (b == '"') {
+                    return;
+                }
+            }
+        }
+
+        private void skipSpace() {
+            while (isSpace(peek())) {
+                position++;
+            }
+        }
+
+        private static boolean isSpace(int b) {
+            return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+        }
+
+        private int peek() {
+            if (position == limit && !fill()) {
+                return -1;
+            }
+            return buffer[position] & 0xFF;
+        }
+
+        private int next() {
+            if (position == limit && !fill()) {
+                throw new UnirestException("The json ended too soon");
+            }
+            return buffer[position++] & 0xFF;
+        }
+
+        private boolean fill() {
+            try {
+                int count;
+                do {
+                    count = in.read(buffer);
+                } while (count == 0);
+                position = 0;
+                limit = Math.max(count, 0);
+                return count > 0;
+            } catch (IOException e) {
+                throw new UnirestException(e);
+            }
+        }
+
+        private void write(int b) {
+            if (length == out.length) {
+                out = Arrays.copyOf(out, out.length * 2);
+            }
+            out[length++] = (byte) b;
+        }
+
+        private UnirestException unexpected(int b) {
+            return new UnirestException("Unexpected " + (b < 0 ? "end" : "'" + (char) b + "'") + " in the json");
+        }
+    }
+}
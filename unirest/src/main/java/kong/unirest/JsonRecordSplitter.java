@@ -0,0 +1,177 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of unirest-java are held by Kong Inc (c) 2013.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package kong.unirest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Splits a stream of JSON bytes into its records, either the lines of newline delimited json
+ * (or any other whitespace separated values) or the elements of a top level array.
+ * Which one is decided by the first character. Only the nesting, strings and escapes are tracked,
+ * so nothing is parsed here and each record is handed over as text once it is complete.
+ * The structural characters are all ASCII and never appear inside a multi-byte UTF-8 sequence,
+ * so the bytes are scanned as they are and each record is decoded once.
+ */
+class JsonRecordSplitter {
+    private static final int UNDECIDED = 0;
+    private static final int VALUES = 1;
+    private static final int ARRAY = 2;
+    private static final int ENDED = 3;
+
+    private final Consumer<String> records;
+    private byte[] record = new byte[1024];
+    private int length;
+    private int mode = UNDECIDED;
+    private int depth;
+    private boolean inRecord;
+    private boolean inString;
+    private boolean escaped;
+    private boolean scalar;
+
+    JsonRecordSplitter(Consumer<String> records) {
+        this.records = records;
+    }
+
+    void feed(byte[] bytes, int offset, int count) {
+        for (int i = offset; i < offset + count; i++) {
+            feed(bytes[i]);
+        }
+    }
+
+    void feed(byte b) {
+        if (mode == ENDED) {
+            if (!isSpace(b)) {
+                throw new UnirestException("Unexpected content after the end of the json array");
+            }
+            return;
+        }
+        if (!inRecord) {
+            between(b);
+            return;
+        }
+        if (inString) {
+            append(b);
+            if (escaped) {
+                escaped = false;
+            } else if (b == '\\') {
+                escaped = true;
+            } else if (b == '"') {
+                inString = false;
+                if (depth == 0) {
+                    emit();
+                }
+            }
+        } else if (scalar) {
+            if (isSpace(b) || b == ',' || b == ']' || b == '{' || b == '[' || b == '"') {
+                emit();
+                between(b);
+            } else {
+                append(b);
+            }
+        } else {
+            append(b);
+            if (b == '"') {
+                inString = true;
+            } else if (b == '{' || b == '[') {
+                depth++;
+            } else if (b == '}' || b == ']') {
+                if (--depth == 0) {
+                    emit();
+                }
+            }
+        }
+    }
+
+    /**
+     * Signal the end of the content
+     */
+    void end() {
+        if (inRecord && scalar && !inString) {
+            emit();
+        }
+        if (inRecord) {
+            throw new UnirestException("The json content ended in the middle of a record");
+        }
+        if (mode == ARRAY) {
+            throw new UnirestException("The json array was never closed");
+        }
+    }
+
+    private void between(byte b) {
+        if (isSpace(b) || (b & 0xFF) == 0xEF || (b & 0xFF) == 0xBB || (b & 0xFF) == 0xBF) {
+            return;
+        }
+        if (mode == UNDECIDED) {
+            if (b == '[') {
+                mode = ARRAY;
+                return;
+            }
+            mode = VALUES;
+        }
+        if (mode == ARRAY) {
+            if (b == ',') {
+                return;
+            }
+            if (b == ']') {
+                mode = ENDED;
+                return;
+            }
+        }
+        inRecord = true;
+        append(b);
+        if (b == '"') {
+            inString = true;
+        } else if (b == '{' || b == '[') {
+            depth = 1;
+        } else {
+            scalar = true;
+        }
+    }
+
+    private void append(byte b) {
+        if (length == record.length) {
+            record = Arrays.copyOf(record, record.length * 2);
+        }
+        record[length++] = b;
+    }
+
+    private void emit() {
+        String text = new String(record, 0, length, StandardCharsets.UTF_8);
+        length = 0;
+        depth = 0;
+        inRecord = false;
+        inString = false;
+        escaped = false;
+        scalar = false;
+        records.accept(text);
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+}
@@ -0,0 +1,200 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of unirest-java are held by Kong Inc (c) 2013.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package kong.unirest;
+
+import org.json.gsc.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Spliterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads the records of a newline delimited json or top level json array body one at a time,
+ * so only the record at hand (and whatever is left of the last read) is held in memory.
+ */
+class JsonRecords {
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private JsonRecords() {
+    }
+
+    /**
+     * @param content the body, which is closed when the stream is closed
+     * @return the records, read as the stream is consumed
+     */
+    static Stream<JSONObject> stream(InputStream content) {
+        return StreamSupport.stream(new Reader(content), false)
+                .onClose(() -> {
+                    try {
+                        content.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    static JSONObject toObject(String record) {
+        JSONObject object = JSONObject.build(record);
+        if (JSONObject.isInvalided(object)) {
+            String shown = record.length() > 100 ? record.substring(0, 100) + "..." : record;
+            throw new UnirestException("Not a json object: " + shown);
+        }
+        return object;
+    }
+
+    private static class Reader implements Spliterator<JSONObject> {
+        private final InputStream content;
+        private final ArrayDeque<String> ready = new ArrayDeque<>();
+        private final JsonRecordSplitter splitter = new JsonRecordSplitter(ready::add);
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private boolean ended;
+
+        Reader(InputStream content) {
+            this.content = content;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super JSONObject> action) {
+            while (ready.isEmpty() && !ended) {
+                read();
+            }
+            if (ready.isEmpty()) {
+                return false;
+            }
+            action.accept(toObject(ready.poll()));
+            return true;
+        }
+
+        private void read() {
+            try {
+                int count = content.read(buffer);
+                if (count < 0) {
+                    ended = true;
+                    splitter.end();
+                } else {
+                    splitter.feed(buffer, 0, count);
+                }
+            } catch (IOException e) {
+                throw new UnirestException(e);
+            }
+        }
+
+        @Override
+        public Spliterator<JSONObject> trySplit() {
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL;
+        }
+    }
+
+    /**
+     * Parses the records from a published body and hands each to the consumer as soon as it is complete.
+     * Only one buffer is asked for at a time, so a slow consumer slows down the reading of the connection.
+     * The future completes with the number of records once the body has been read.
+     */
+    static class Subscriber implements Flow.Subscriber<ByteBuffer> {
+        private final Consumer<JSONObject> consumer;
+        private final CompletableFuture<Long> future = new CompletableFuture<>();
+        private final JsonRecordSplitter splitter = new JsonRecordSplitter(this::record);
+        private final byte[] bytes = new byte[BUFFER_SIZE];
+        private Flow.Subscription subscription;
+        private long count;
+
+        Subscriber(Consumer<JSONObject> consumer) {
+            this.consumer = consumer;
+        }
+
+        CompletableFuture<Long> future() {
+            return future;
+        }
+
+        private void record(String record) {
+            consumer.accept(toObject(record));
+            count++;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription s) {
+            subscription = s;
+            future.whenComplete((c, e) -> {
+                if (future.isCancelled()) {
+                    s.cancel();
+                }
+            });
+            s.request(1);
+        }
+
+        @Override
+        public void onNext(ByteBuffer item) {
+            if (future.isDone()) {
+                return;
+            }
+            try {
+                while (item.hasRemaining()) {
+                    int n = Math.min(item.remaining(), bytes.length);
+                    item.get(bytes, 0, n);
+                    splitter.feed(bytes, 0, n);
+                }
+            } catch (RuntimeException e) {
+                subscription.cancel();
+                future.completeExceptionally(e);
+                return;
+            }
+            subscription.request(1);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            future.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            try {
+                splitter.end();
+                future.complete(count);
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+}
@@ -25,26 +25,45 @@
 
 package kong.unirest;
 
+import java.io.UnsupportedEncodingException;
 import java.util.Objects;
+import java.util.Optional;
 
+/**
+ * Holds on to the bytes of the body and only parses them on the first call to getBody,
+ * so a caller who only looks at the status or the headers never pays for the json.
+ * Checking isSuccess on a 2xx response also parses, to find out if the body is valid.
+ */
 public class JsonResponse extends BaseResponse<JsonNode> {
-    private JsonNode node;
+    private final byte[] content;
+    private final String charset;
+    private volatile JsonNode node;
+    private volatile boolean parsed;
+    private String raw;
 
     protected JsonResponse(RawResponse response) {
         super(response);
-        node = getNode(response);
-    }
-
-    private JsonNode getNode(RawResponse response) {
         if (Objects.isNull(response) || !response.hasContent()) {
-            return new JsonNode(null);
+            content = null;
+            charset = null;
         } else {
-            String json = response.getContentAsString();
-            return toJsonNode(json);
+            content = response.getContentAsBytes();
+            charset = getCharset(response);
+        }
+    }
+
+    static String getCharset(RawResponse response) {
+        if (response instanceof RawResponseBase) {
+            return ((RawResponseBase) response).getCharSet();
         }
+        return response.getConfig().getDefaultResponseEncoding();
     }
 
-    private JsonNode toJsonNode(String json) {
+    private JsonNode parse() {
+        if (content == null) {
+            return new JsonNode(null);
+        }
+        String json = getRawBody();
         try {
             return new JsonNode(json);
         } catch (RuntimeException e) {
@@ -55,11 +74,32 @@ public class JsonResponse extends BaseResponse<JsonNode> {
 
     @Override
     public JsonNode getBody() {
+        if (!parsed) {
+            synchronized (this) {
+                if (!parsed) {
+                    node = parse();
+                    parsed = true;
+                }
+            }
+        }
         return node;
     }
 
     @Override
-    protected String getRawBody() {
-        return node.toString();
+    public Optional<UnirestParsingException> getParsingError() {
+        getBody();
+        return super.getParsingError();
+    }
+
+    @Override
+    protected synchronized String getRawBody() {
+        if (raw == null && content != null) {
+            try {
+                raw = new String(content, charset);
+            } catch (UnsupportedEncodingException e) {
+                throw new UnirestException(e);
+            }
+        }
+        return raw;
     }
 }
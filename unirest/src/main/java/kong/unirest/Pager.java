@@ -0,0 +1,505 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of unirest-java are held by Kong Inc (c) 2013.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package kong.unirest;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Pages through a listing on the async client and hands the pages over in order.
+ * <p>
+ * By default the next page is the one in the RFC 8288 Link header with rel="next", and it is fetched
+ * as soon as the current page arrives, while the consumer is still busy with earlier pages.
+ * When the page urls can be worked out up front (a page number or offset query parameter) several pages
+ * are fetched at once instead.
+ * <p>
+ * Only as many pages are fetched ahead of the consumer as the prefetch allows, and a page is
+ * let go of once it is handed over, so a long listing does not have to fit in memory.
+ * Every subscriber (and every stream or forEach) pages through the listing afresh.
+ * @param <T> the type of the bodies
+ */
+public class Pager<T> implements Flow.Publisher<HttpResponse<T>> {
+    private static final Pattern LINK = Pattern.compile("<([^>]*)>((?:\\s*;\\s*[^;,=\\s]+\\s*(?:=\\s*(?:\"[^\"]*\"|[^;,\\s]*))?)*)");
+    private static final Pattern REL = Pattern.compile("(?i)(?:^|;)\\s*rel\\s*=\\s*(?:\"([^\"]*)\"|([^;,\\s]+))");
+    private final BaseRequest<?> request;
+    private final Function<HttpRequest<?>, CompletableFuture<HttpResponse<T>>> call;
+    private Function<HttpResponse<T>, String> nextLink = r -> nextLink(r.getHeaders());
+    private Predicate<HttpResponse<T>> until;
+    private String param;
+    private long first;
+    private long step;
+    private int parallelism = 4;
+    private int prefetch = 1;
+    private long maxPages = Long.MAX_VALUE;
+
+    Pager(BaseRequest<?> request, Function<HttpRequest<?>, CompletableFuture<HttpResponse<T>>> call) {
+        this.request = request;
+        this.call = call;
+    }
+
+    /**
+     * Find the next page some other way than the Link header
+     * @param extractor returns the (possibly relative) url of the next page, or null or empty on the last page
+     * @return this pager
+     */
+    public Pager<T> nextLink(Function<HttpResponse<T>, String> extractor) {
+        this.nextLink = Objects.requireNonNull(extractor);
+        this.param = null;
+        return this;
+    }
+
+    /**
+     * Number the pages with a query parameter, so they can be fetched in parallel.
+     * Paging ends at the first page matched by until (a failed response by default).
+     * @param name the query parameter holding the page number
+     * @param firstPage the number of the first page
+     * @return this pager
+     */
+    public Pager<T> pageNumbers(String name, long firstPage) {
+        return numbered(name, firstPage, 1);
+    }
+
+    /**
+     * Offset the pages with a query parameter, so they can be fetched in parallel.
+     * Paging ends at the first page matched by until (a failed response by default).
+     * @param name the query parameter holding the offset
+     * @param start the offset of the first page
+     * @param pageSize how far each page moves the offset
+     * @return this pager
+     */
+    public Pager<T> offsets(String name, long start, long pageSize) {
+        return numbered(name, start, pageSize);
+    }
+
+    private Pager<T> numbered(String name, long start, long increment) {
+        this.param = Objects.requireNonNull(name);
+        this.first = start;
+        this.step = increment;
+        return this;
+    }
+
+    /**
+     * End the paging at the first page matching the predicate (e.g. an empty page). That page is not handed over.
+     * By default numbered paging ends at the first failed response, and linked paging only when there is no next link.
+     * @param predicate the test for a page past the end
+     * @return this pager
+     */
+    public Pager<T> until(Predicate<HttpResponse<T>> predicate) {
+        this.until = Objects.requireNonNull(predicate);
+        return this;
+    }
+
+    /**
+     * Set how many numbered pages are fetched at once. Default is 4. Pages found by link are always fetched one at a time.
+     * @param value the number of pages in flight
+     * @return this pager
+     */
+    public Pager<T> parallelism(int value) {
+        this.parallelism = Math.max(1, value);
+        return this;
+    }
+
+    /**
+     * Set how many pages may be fetched ahead of the consumer. Default is 1.
+     * @param value the number of pages
+     * @return this pager
+     */
+    public Pager<T> prefetch(int value) {
+        this.prefetch = Math.max(0, value);
+        return this;
+    }
+
+    /**
+     * Stop after this many pages whatever else happens
+     * @param value the most pages to fetch
+     * @return this pager
+     */
+    public Pager<T> maxPages(long value) {
+        this.maxPages = value;
+        return this;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super HttpResponse<T>> subscriber) {
+        Run run = new Run(subscriber);
+        subscriber.onSubscribe(run);
+        run.drain();
+    }
+
+    /**
+     * @return the pages in order, blocking for each until it arrives. Close the stream to stop paging early.
+     */
+    public Stream<HttpResponse<T>> stream() {
+        Pages pages = new Pages();
+        subscribe(pages);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(pages, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(pages::cancel);
+    }
+
+    /**
+     * Hand each page to the consumer in order as it arrives
+     * @param consumer the consumer of the pages
+     * @return a future which completes after the last page, or fails with the first failure
+     */
+    public CompletableFuture<Void> forEach(Consumer<HttpResponse<T>> consumer) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        subscribe(new Flow.Subscriber<HttpResponse<T>>() {
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription s) {
+                subscription = s;
+                s.request(1);
+            }
+
+            @Override
+            public void onNext(HttpResponse<T> page) {
+                try {
+                    consumer.accept(page);
+                } catch (RuntimeException e) {
+                    subscription.cancel();
+                    done.completeExceptionally(e);
+                    return;
+                }
+                subscription.request(1);
+            }
+
+            @Override
+            public void onError(Throwable e) {
+                done.completeExceptionally(e);
+            }
+
+            @Override
+            public void onComplete() {
+                done.complete(null);
+            }
+        });
+        return done;
+    }
+
+    /**
+     * Find the rel="next" target in RFC 8288 Link headers
+     * @param headers the headers of a response
+     * @return the next link as written in the header, which may be relative, or null if there is none
+     */
+    public static String nextLink(Headers headers) {
+        for (String value : headers.get("Link")) {
+            Matcher link = LINK.matcher(value);
+            while (link.find()) {
+                Matcher rel = REL.matcher(link.group(2));
+                while (rel.find()) {
+                    String rels = rel.group(1) != null ? rel.group(1) : rel.group(2);
+                    if (Arrays.stream(rels.trim().split("\\s+")).anyMatch("next"::equalsIgnoreCase)) {
+                        return link.group(1).trim();
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String resolve(String base, String link) {
+        try {
+            return URI.create(base).resolve(link).toString();
+        } catch (IllegalArgumentException e) {
+            return link;
+        }
+    }
+
+    private static String withParam(String url, String name, long value) {
+        int q = url.indexOf('?');
+        String base = q < 0 ? url : url.substring(0, q);
+        List<String> params = new ArrayList<>();
+        if (q >= 0) {
+            Arrays.stream(url.substring(q + 1).split("&"))
+                    .filter(p -> !p.isEmpty() && !p.equals(name) && !p.startsWith(name + "="))
+                    .forEach(params::add);
+        }
+        params.add(name + "=" + value);
+        return base + "?" + String.join("&", params);
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    private static class Page<T> {
+        private final HttpResponse<T> response;
+        private final Throwable error;
+
+        Page(HttpResponse<T> response, Throwable error) {
+            this.response = response;
+            this.error = error;
+        }
+    }
+
+    /**
+     * One pass through the listing for one subscriber. Pages may arrive in any order; they are
+     * held until their turn and handed over only as the subscriber asks for them.
+     */
+    private class Run implements Flow.Subscription {
+        private final Flow.Subscriber<? super HttpResponse<T>> subscriber;
+        private final TreeMap<Long, Page<T>> ready = new TreeMap<>();
+        private final Map<Long, CompletableFuture<HttpResponse<T>>> inFlight = new HashMap<>();
+        private final AtomicInteger wip = new AtomicInteger();
+        private final boolean numbered = param != null;
+        private final Predicate<HttpResponse<T>> last = until != null ? until : numbered ? r -> !r.isSuccess() : r -> false;
+        private long demand;
+        private long nextIndex;
+        private long emitIndex;
+        private long end = maxPages;
+        private String nextUrl = request.getUrl();
+        private boolean cancelled;
+        private boolean terminated;
+
+        Run(Flow.Subscriber<? super HttpResponse<T>> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            synchronized (this) {
+                if (n <= 0) {
+                    ready.put(emitIndex, new Page<>(null, new IllegalArgumentException("Demand must be positive")));
+                    end = emitIndex + 1;
+                } else {
+                    demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                }
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            List<CompletableFuture<HttpResponse<T>>> outstanding;
+            synchronized (this) {
+                cancelled = true;
+                ready.clear();
+                outstanding = new ArrayList<>(inFlight.values());
+                inFlight.clear();
+            }
+            outstanding.stream().filter(Objects::nonNull).forEach(f -> f.cancel(true));
+        }
+
+        void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            do {
+                List<HttpResponse<T>> emit = new ArrayList<>();
+                Map<Long, String> launch = new TreeMap<>();
+                Throwable error = null;
+                boolean complete = false;
+                synchronized (this) {
+                    if (!cancelled && !terminated) {
+                        while (emitIndex < end && ready.containsKey(emitIndex)
+                                && (demand > 0 || ready.get(emitIndex).error != null)) {
+                            Page<T> page = ready.remove(emitIndex++);
+                            if (page.error != null) {
+                                error = page.error;
+                                terminated = true;
+                                break;
+                            }
+                            emit.add(page.response);
+                            demand--;
+                        }
+                        if (!terminated && emitIndex >= end) {
+                            complete = true;
+                            terminated = true;
+                        }
+                        while (!terminated && canLaunch()) {
+                            long index = nextIndex++;
+                            launch.put(index, numbered ? withParam(request.getUrl(), param, first + index * step) : nextUrl);
+                            inFlight.put(index, null);
+                            if (!numbered) {
+                                nextUrl = null;
+                            }
+                        }
+                    }
+                }
+                emit.forEach(subscriber::onNext);
+                if (error != null) {
+                    cancel();
+                    subscriber.onError(error);
+                } else if (complete) {
+                    subscriber.onComplete();
+                }
+                launch.forEach(this::fetch);
+            } while (wip.decrementAndGet() != 0);
+        }
+
+        private boolean canLaunch() {
+            long window = Math.min(demand, Integer.MAX_VALUE) + prefetch;
+            return nextIndex < end
+                    && nextIndex - emitIndex < window
+                    && (numbered ? inFlight.size() < parallelism : nextUrl != null && inFlight.isEmpty());
+        }
+
+        private void fetch(long index, String url) {
+            HttpRequest<?> page = !numbered && index == 0 ? request : new PageRequest(request, url);
+            CompletableFuture<HttpResponse<T>> future;
+            try {
+                future = call.apply(page);
+            } catch (RuntimeException e) {
+                future = new CompletableFuture<>();
+                future.completeExceptionally(e);
+            }
+            synchronized (this) {
+                if (inFlight.containsKey(index)) {
+                    inFlight.put(index, future);
+                } else {
+                    future.cancel(true);
+                    return;
+                }
+            }
+            future.whenComplete((r, e) -> arrived(index, url, r, e));
+        }
+
+        private void arrived(long index, String url, HttpResponse<T> response, Throwable error) {
+            List<CompletableFuture<HttpResponse<T>>> beyond = new ArrayList<>();
+            synchronized (this) {
+                if (inFlight.remove(index) == null || index >= end) {
+                    return;
+                }
+                if (error != null) {
+                    ready.put(index, new Page<>(null, unwrap(error)));
+                    end = index + 1;
+                } else if (last.test(response)) {
+                    end = index;
+                } else {
+                    ready.put(index, new Page<>(response, null));
+                    if (!numbered) {
+                        String next = nextLink.apply(response);
+                        if (next == null || next.isEmpty()) {
+                            end = Math.min(end, index + 1);
+                        } else {
+                            nextUrl = resolve(url, next);
+                        }
+                    }
+                }
+                // pages past the end are not needed
+                List<Long> past = inFlight.keySet().stream().filter(i -> i >= end).collect(Collectors.toList());
+                past.forEach(i -> beyond.add(inFlight.remove(i)));
+                ready.tailMap(end, true).clear();
+            }
+            beyond.stream().filter(Objects::nonNull).forEach(f -> f.cancel(true));
+            drain();
+        }
+    }
+
+    /**
+     * Turns the pushed pages back into a blocking iterator, asking for one page at a time.
+     */
+    private class Pages implements Flow.Subscriber<HttpResponse<T>>, Iterator<HttpResponse<T>> {
+        private final Object complete = new Object();
+        private final BlockingQueue<Object> signals = new LinkedBlockingQueue<>();
+        private Flow.Subscription subscription;
+        private Object next;
+        private boolean asked;
+
+        @Override
+        public void onSubscribe(Flow.Subscription s) {
+            this.subscription = s;
+        }
+
+        @Override
+        public void onNext(HttpResponse<T> page) {
+            signals.offer(page);
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            signals.offer(e);
+        }
+
+        @Override
+        public void onComplete() {
+            signals.offer(complete);
+        }
+
+        void cancel() {
+            subscription.cancel();
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                if (!asked) {
+                    asked = true;
+                    subscription.request(1);
+                }
+                try {
+                    next = signals.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    subscription.cancel();
+                    throw new UnirestException(e);
+                }
+                asked = false;
+            }
+            if (next instanceof Throwable) {
+                Throwable e = (Throwable) next;
+                throw e instanceof RuntimeException ? (RuntimeException) e : new UnirestException(e);
+            }
+            return next != complete;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public HttpResponse<T> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            HttpResponse<T> page = (HttpResponse<T>) next;
+            next = null;
+            return page;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of unirest-java are held by Kong Inc (c) 2013.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package kong.unirest;
+
+import org.json.gsc.JSONArray;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Parses a large top level json array on a ForkJoinPool.
+ * One quick pass over the bytes (tracking only nesting, strings and escapes) finds commas between top level
+ * elements to cut the array into chunks of whole elements, the chunks are parsed in parallel,
+ * and the parts are put back together in order.
+ * Anything which is not a large top level array, or is not in a charset the bytes can be scanned in, is parsed as usual.
+ */
+class ParallelJson {
+    private static final int MIN_BYTES = 1024 * 1024;
+    private static final int MIN_CHUNK = 64 * 1024;
+
+    private final byte[] content;
+    private final String charset;
+
+    private ParallelJson(byte[] content, String charset) {
+        this.content = content;
+        this.charset = charset;
+    }
+
+    static ParallelJson of(RawResponse response) {
+        if (Objects.isNull(response) || !response.hasContent()) {
+            return new ParallelJson(null, null);
+        }
+        return new ParallelJson(response.getContentAsBytes(), JsonResponse.getCharset(response));
+    }
+
+    JsonNode parse(ForkJoinPool pool) {
+        if (content == null) {
+            return new JsonNode(null);
+        }
+        if (content.length < MIN_BYTES || !isScannable()) {
+            return new JsonNode(text(0, content.length));
+        }
+        int chunk = Math.max(MIN_CHUNK, content.length / (pool.getParallelism() * 4));
+        int[] cuts = cut(chunk);
+        if (cuts == null || cuts.length < 3) {
+            return new JsonNode(text(0, content.length));
+        }
+        JSONArray[] parts = new JSONArray[cuts.length - 1];
+        pool.invoke(new Parse(cuts, parts, 0, parts.length));
+        JSONArray result = JSONArray.build();
+        for (JSONArray part : parts) {
+            if (JSONArray.isInvalided(part)) {
+                return new JsonNode(text(0, content.length));
+            }
+            for (Object element : part) {
+                result.add(element);
+            }
+        }
+        return JsonNode.of(result);
+    }
+
+    /**
+     * Parse the body of a response. Like JsonResponse, a body which is not valid json
+     * gives a response carrying the parsing error rather than an exception.
+     */
+    static HttpResponse<JsonNode> parse(HttpResponse<ParallelJson> response, ForkJoinPool pool) {
+        try {
+            return response.map(content -> content == null ? null : content.parse(pool));
+        } catch (RuntimeException e) {
+            BasicResponse<JsonNode> failed = new BasicResponse<>((BaseResponse) response, null);
+            failed.setParsingException(response.getBody().recoverBody(), e);
+            return failed;
+        }
+    }
+
+    private String recoverBody() {
+        try {
+            return content == null ? null : text(0, content.length);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private boolean isScannable() {
+        try {
+            Charset cs = Charset.forName(charset);
+            return cs.equals(StandardCharsets.UTF_8)
+                    || cs.equals(StandardCharsets.US_ASCII)
+                    || cs.equals(StandardCharsets.ISO_8859_1);
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return the positions of the opening bracket, the chosen commas between top level elements and the closing bracket,
+     * or null if the content is not a single top level array
+     */
+    private int[] cut(int chunk) {
+        int i = skipSpace(0);
+        if (i == content.length || content[i] != '[') {
+            return null;
+        }
+        int[] cuts = new int[16];
+        int count = 0;
+        cuts[count++] = i;
+        int depth = 0;
+        boolean inString = false;
+        for (; i < content.length; i++) {
+            byte b = content[i];
+            if (inString) {
+                if (b == '\\') {
+                    i++;
+                } else if (b == '"') {
+                    inString = false;
+                }
+            } else if (b == '"') {
+                inString = true;
+            } else if (b == '[' || b == '{') {
+                depth++;
+            } else if (b == ']' || b == '}') {
+                if (--depth == 0) {
+                    break;
+                }
+            } else if (b == ',' && depth == 1 && i - cuts[count - 1] >= chunk) {
+                if (count == cuts.length) {
+                    cuts = Arrays.copyOf(cuts, count * 2);
+                }
+                cuts[count++] = i;
+            }
+        }
+        if (i >= content.length || skipSpace(i + 1) != content.length) {
+            return null;
+        }
+        if (count == cuts.length) {
+            cuts = Arrays.copyOf(cuts, count + 1);
+        }
+        cuts[count++] = i;
+        return Arrays.copyOf(cuts, count);
+    }
+
+    private int skipSpace(int from) {
+        int i = from;
+        while (i < content.length && (content[i] == ' ' || content[i] == '\n' || content[i] == '\r' || content[i] == '\t')) {
+            i++;
+        }
+        return i;
+    }
+
+    private String text(int from, int to) {
+        try {
+            return new String(content, from, to - from, charset);
+        } catch (UnsupportedEncodingException e) {
+            throw new UnirestException(e);
+        }
+    }
+
+    /**
+     * Parses the chunks between the cuts, splitting the range in half until a task has one chunk
+     */
+    private class Parse extends RecursiveAction {
+        private final int[] cuts;
+        private final JSONArray[] parts;
+        private final int from;
+        private final int to;
+
+        Parse(int[] cuts, JSONArray[] parts, int from, int to) {
+            this.cuts = cuts;
+            this.parts = parts;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                String elements = text(cuts[from] + 1, cuts[from + 1]);
+                parts[from] = JSONArray.toJSONArray("[" + elements + "]");
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Parse(cuts, parts, from, middle), new Parse(cuts, parts, middle, to));
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of unirest-java are held by Kong Inc (c) 2013.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package kong.unirest;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509ExtendedTrustManager;
+import java.net.Socket;
+import java.security.KeyStore;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+
+/**
+ * A trust manager whose trusted certificates can be replaced while connections are being opened from it.
+ * Without a trust store the JVM default trust is used.
+ */
+class ReloadableTrustManager extends X509ExtendedTrustManager {
+    private static final X509Certificate[] NONE = new X509Certificate[0];
+    private volatile X509ExtendedTrustManager delegate;
+    private volatile boolean trustAll;
+
+    void load(KeyStore store) {
+        try {
+            TrustManagerFactory factory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+            factory.init(store);
+            for (TrustManager manager : factory.getTrustManagers()) {
+                if (manager instanceof X509ExtendedTrustManager) {
+                    delegate = (X509ExtendedTrustManager) manager;
+                    trustAll = false;
+                    return;
+                }
+            }
+            throw new UnirestConfigException("No X509 trust manager available for the trust store");
+        } catch (UnirestConfigException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UnirestConfigException(e);
+        }
+    }
+
+    /**
+     * Trust every certificate, for when ssl verification is turned off.
+     */
+    void trustAll() {
+        trustAll = true;
+    }
+
+    private X509ExtendedTrustManager current() throws CertificateException {
+        if (trustAll) {
+            return null;
+        }
+        X509ExtendedTrustManager d = delegate;
+        if (d == null) {
+            throw new CertificateException("No trust material has been loaded");
+        }
+        return d;
+    }
+
+    @Override
+    public void checkClientTrusted(X509Certificate[] chain, String authType, Socket socket) throws CertificateException {
+        X509ExtendedTrustManager d = current();
+        if (d != null) {
+            d.checkClientTrusted(chain, authType, socket);
+        }
+    }
+
+    @Override
+    public void checkServerTrusted(X509Certificate[] chain, String authType, Socket socket) throws CertificateException {
+        X509ExtendedTrustManager d = current();
+        if (d != null) {
+            d.checkServerTrusted(chain, authType, socket);
+        }
+    }
+
+    @Override
+    public void checkClientTrusted(X509Certificate[] chain, String authType, SSLEngine engine) throws CertificateException {
+        X509ExtendedTrustManager d = current();
+        if (d != null) {
+            d.checkClientTrusted(chain, authType, engine);
+        }
+    }
+
+    @Override
+    public void checkServerTrusted(X509Certificate[] chain, String authType, SSLEngine engine) throws CertificateException {
+        X509ExtendedTrustManager d = current();
+        if (d != null) {
+            d.checkServerTrusted(chain, authType, engine);
+        }
+    }
+
+    @Override
+    public void checkClientTrusted(X509Certificate[] chain, String authType) throws CertificateException {
+        X509ExtendedTrustManager d = current();
+        if (d != null) {
+            d.checkClientTrusted(chain, authType);
+        }
+    }
+
+    @Override
+    public void checkServerTrusted(X509Certificate[] chain, String authType) throws CertificateException {
+        X509ExtendedTrustManager d = current();
+        if (d != null) {
+            d.checkServerTrusted(chain, authType);
+        }
+    }
+
+    @Override
+    public X509Certificate[] getAcceptedIssuers() {
+        X509ExtendedTrustManager d = delegate;
+        return trustAll || d == null ? NONE : d.getAcceptedIssuers();
+    }
+}
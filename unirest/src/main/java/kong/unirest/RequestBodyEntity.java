@@ -26,7 +26,9 @@
 package kong.unirest;
 
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.util.concurrent.Flow;
 
 public interface RequestBodyEntity extends HttpRequest<RequestBodyEntity>, Body {
     /**
@@ -43,6 +45,13 @@ public interface RequestBodyEntity extends HttpRequest<RequestBodyEntity>, Body
      */
     RequestBodyEntity body(String bodyAsString);
 
+    /**
+     * Stream the body from a reactive publisher as it produces it
+     * @param body the publisher of the body
+     * @return this request builder
+     */
+    RequestBodyEntity body(Flow.Publisher<ByteBuffer> body);
+
     /**
      * Set JSON on the body
      *
@@ -0,0 +1,258 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of unirest-java are held by Kong Inc (c) 2013.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package kong.unirest;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Runs requests which depend on each other's responses, each as soon as the ones it depends on are done.
+ * A node's request is built from the responses of its parents, so independent branches run at the same time
+ * on the async client and the whole graph takes only as long as its slowest path.
+ * A node whose parent failed is skipped, and so are its own dependents.
+ * <p>
+ * Parents must be added before their children, so a graph can never have a cycle.
+ */
+public class RequestGraph {
+    private final Map<String, Node<?>> nodes = new LinkedHashMap<>();
+
+    RequestGraph() {
+    }
+
+    /**
+     * Add a node whose response body is json
+     * @param name the name of the node, unique in the graph
+     * @param request builds the request from the responses of the parents
+     * @param parents the names of the nodes this one needs responses from
+     * @return this graph
+     */
+    public RequestGraph add(String name, Function<Results, HttpRequest<?>> request, String... parents) {
+        return add(name, request, HttpRequest::asJsonAsync, parents);
+    }
+
+    /**
+     * Add a node with an async call of your choosing
+     * @param name the name of the node, unique in the graph
+     * @param request builds the request from the responses of the parents
+     * @param call makes the async call for the request, e.g. HttpRequest::asStringAsync
+     * @param parents the names of the nodes this one needs responses from
+     * @param <T> the type of the body
+     * @return this graph
+     */
+    public <T> RequestGraph add(String name, Function<Results, HttpRequest<?>> request,
+                                Function<HttpRequest<?>, CompletableFuture<HttpResponse<T>>> call, String... parents) {
+        Objects.requireNonNull(name, "Name may not be null");
+        if (nodes.containsKey(name)) {
+            throw new UnirestConfigException("The graph already has a node named " + name);
+        }
+        for (String parent : parents) {
+            if (!nodes.containsKey(parent)) {
+                throw new UnirestConfigException("Node " + name + " depends on " + parent + " which must be added first");
+            }
+        }
+        nodes.put(name, new Node<>(name, request, call, Arrays.asList(parents)));
+        return this;
+    }
+
+    /**
+     * Run the graph. A node fails if its call fails or its response is not a 200-series response.
+     * @return a future of the results, which completes when every node is done or skipped
+     */
+    public CompletableFuture<Results> run() {
+        Results results = new Results();
+        Map<String, CompletableFuture<Void>> done = new LinkedHashMap<>();
+        for (Node<?> node : nodes.values()) {
+            CompletableFuture<?>[] parents = node.parents.stream().map(done::get).toArray(CompletableFuture[]::new);
+            done.put(node.name, CompletableFuture.allOf(parents).thenCompose(v -> node.run(results)));
+        }
+        return CompletableFuture.allOf(done.values().toArray(new CompletableFuture[0])).thenApply(v -> results);
+    }
+
+    private static class Node<T> {
+        private final String name;
+        private final Function<Results, HttpRequest<?>> request;
+        private final Function<HttpRequest<?>, CompletableFuture<HttpResponse<T>>> call;
+        private final List<String> parents;
+
+        Node(String name, Function<Results, HttpRequest<?>> request,
+             Function<HttpRequest<?>, CompletableFuture<HttpResponse<T>>> call, List<String> parents) {
+            this.name = name;
+            this.request = request;
+            this.call = call;
+            this.parents = parents;
+        }
+
+        CompletableFuture<Void> run(Results results) {
+            List<String> failed = parents.stream()
+                    .filter(p -> results.getTiming(p).getState() != State.SUCCEEDED)
+                    .collect(Collectors.toList());
+            if (!failed.isEmpty()) {
+                results.skip(name, new UnirestException("Skipped as " + String.join(", ", failed) + " did not succeed"));
+                return CompletableFuture.completedFuture(null);
+            }
+            Instant start = Util.now();
+            CompletableFuture<HttpResponse<T>> response;
+            try {
+                response = call.apply(request.apply(results));
+            } catch (RuntimeException e) {
+                response = new CompletableFuture<>();
+                response.completeExceptionally(e);
+            }
+            return response.handle((r, e) -> {
+                results.finish(name, start, r, e);
+                return null;
+            });
+        }
+    }
+
+    /**
+     * The state a node finished in
+     */
+    public enum State {
+        SUCCEEDED, FAILED, SKIPPED
+    }
+
+    /**
+     * How a node went, and how long its request took
+     */
+    public static class Timing {
+        private final State state;
+        private final Instant start;
+        private final Instant end;
+
+        Timing(State state, Instant start, Instant end) {
+            this.state = state;
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * @return the state the node finished in
+         */
+        public State getState() {
+            return state;
+        }
+
+        /**
+         * @return when the request was sent, or null if the node was skipped
+         */
+        public Instant getStart() {
+            return start;
+        }
+
+        /**
+         * @return when the node finished
+         */
+        public Instant getEnd() {
+            return end;
+        }
+
+        /**
+         * @return how long the request took, zero if the node was skipped
+         */
+        public Duration getDuration() {
+            return start == null ? Duration.ZERO : Duration.between(start, end);
+        }
+    }
+
+    /**
+     * The responses of the nodes done so far. Nodes get this to build their requests from, and a run returns it complete.
+     */
+    public static class Results {
+        private final Map<String, HttpResponse<?>> responses = new ConcurrentHashMap<>();
+        private final Map<String, Exception> failures = new ConcurrentHashMap<>();
+        private final Map<String, Timing> timings = new ConcurrentHashMap<>();
+
+        void finish(String name, Instant start, HttpResponse<?> response, Throwable error) {
+            Instant end = Util.now();
+            if (response != null) {
+                responses.put(name, response);
+            }
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                failures.put(name, cause instanceof Exception ? (Exception) cause : new UnirestException(cause));
+            } else if (!response.isSuccess()) {
+                failures.put(name, new UnirestException("Response did not succeed: " + response.getStatus() + " " + response.getStatusText()));
+            }
+            timings.put(name, new Timing(failures.containsKey(name) ? State.FAILED : State.SUCCEEDED, start, end));
+        }
+
+        void skip(String name, Exception reason) {
+            failures.put(name, reason);
+            timings.put(name, new Timing(State.SKIPPED, null, Util.now()));
+        }
+
+        /**
+         * @param name the name of a node
+         * @param <T> the type of the body
+         * @return the response of the node, or null if it has none
+         */
+        @SuppressWarnings("unchecked")
+        public <T> HttpResponse<T> get(String name) {
+            return (HttpResponse<T>) responses.get(name);
+        }
+
+        /**
+         * @param name the name of a node
+         * @return how the node went
+         */
+        public Timing getTiming(String name) {
+            return timings.get(name);
+        }
+
+        /**
+         * @return how every node went, keyed by name
+         */
+        public Map<String, Timing> getTimings() {
+            return Collections.unmodifiableMap(timings);
+        }
+
+        /**
+         * @return the exceptions of the failed and skipped nodes, keyed by name
+         */
+        public Map<String, Exception> getFailures() {
+            return Collections.unmodifiableMap(failures);
+        }
+
+        /**
+         * @return if every node succeeded
+         */
+        public boolean isSuccess() {
+            return failures.isEmpty();
+        }
+    }
+}
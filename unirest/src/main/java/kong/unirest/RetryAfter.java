@@ -97,6 +97,13 @@ class RetryAfter {
         }
     }
 
+    /**
+     * @return if the wait is over before the deadline, there being no deadline if it is null
+     */
+    boolean endsBefore(Instant deadline) {
+        return deadline == null || Util.now().plusMillis(millies).isBefore(deadline);
+    }
+
     boolean canWait() {
         return millies > 0;
     }
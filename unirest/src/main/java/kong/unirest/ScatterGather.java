@@ -0,0 +1,170 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of unirest-java are held by Kong Inc (c) 2013.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package kong.unirest;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Sends the same logical request to several backends at once and gathers the answers by a policy:
+ * the first good answer, a quorum of good answers, or all of them.
+ * As soon as the policy is met (or can no longer be met) the requests still outstanding are cancelled,
+ * which aborts their exchanges instead of leaving them to hold a connection until they finish.
+ */
+public class ScatterGather {
+    private final List<HttpRequest<?>> requests;
+    private Predicate<HttpResponse<?>> success = HttpResponse::isSuccess;
+    private int needed = 1;
+
+    ScatterGather(Collection<? extends HttpRequest<?>> requests) {
+        this.requests = new ArrayList<>(requests);
+    }
+
+    /**
+     * Done with the first good response. This is the default.
+     * @return this
+     */
+    public ScatterGather firstSuccess() {
+        return quorum(1);
+    }
+
+    /**
+     * Done once this many responses are good
+     * @param count the number of good responses needed
+     * @return this
+     */
+    public ScatterGather quorum(int count) {
+        if (count < 1 || count > requests.size()) {
+            throw new UnirestConfigException("Quorum must be between 1 and the number of requests");
+        }
+        this.needed = count;
+        return this;
+    }
+
+    /**
+     * Done once every response is good
+     * @return this
+     */
+    public ScatterGather all() {
+        return quorum(requests.size());
+    }
+
+    /**
+     * Decide what makes a response good. The default is a 200-series status.
+     * @param predicate the test for a good response
+     * @return this
+     */
+    public ScatterGather successWhen(Predicate<HttpResponse<?>> predicate) {
+        this.success = Objects.requireNonNull(predicate);
+        return this;
+    }
+
+    /**
+     * Send the requests, returning the bodies as strings
+     * @return a future of the good responses, in the order they came in
+     */
+    public CompletableFuture<List<HttpResponse<String>>> asString() {
+        return sendAsync(HttpRequest::asStringAsync);
+    }
+
+    /**
+     * Send the requests, returning the bodies as json
+     * @return a future of the good responses, in the order they came in
+     */
+    public CompletableFuture<List<HttpResponse<JsonNode>>> asJson() {
+        return sendAsync(HttpRequest::asJsonAsync);
+    }
+
+    /**
+     * Send the requests with an async call of your choosing.
+     * The future fails with a UnirestException holding the failures if too few responses are good.
+     *
+     * @param call makes the async call for one request
+     * @param <T> the type of the body
+     * @return a future of the good responses, in the order they came in
+     */
+    public <T> CompletableFuture<List<HttpResponse<T>>> sendAsync(Function<HttpRequest<?>, CompletableFuture<HttpResponse<T>>> call) {
+        if (needed > requests.size()) {
+            CompletableFuture<List<HttpResponse<T>>> none = new CompletableFuture<>();
+            none.completeExceptionally(new UnirestConfigException("Not enough requests to reach a quorum of " + needed));
+            return none;
+        }
+        Gather<T> gather = new Gather<>(requests.size(), needed);
+        List<CompletableFuture<HttpResponse<T>>> calls = new ArrayList<>();
+        for (HttpRequest<?> request : requests) {
+            CompletableFuture<HttpResponse<T>> f;
+            try {
+                f = call.apply(request);
+            } catch (RuntimeException e) {
+                f = new CompletableFuture<>();
+                f.completeExceptionally(e);
+            }
+            calls.add(f);
+        }
+        // cancel the losers once the outcome is known, aborting their exchanges
+        gather.result.whenComplete((r, e) -> calls.forEach(c -> c.cancel(true)));
+        calls.forEach(c -> c.whenComplete((r, e) -> gather.add(r, e)));
+        return gather.result;
+    }
+
+    private class Gather<T> {
+        private final CompletableFuture<List<HttpResponse<T>>> result = new CompletableFuture<>();
+        private final List<HttpResponse<T>> good = new ArrayList<>();
+        private final List<Exception> bad = new ArrayList<>();
+        private final int total;
+        private final int needed;
+
+        Gather(int total, int needed) {
+            this.total = total;
+            this.needed = needed;
+        }
+
+        synchronized void add(HttpResponse<T> response, Throwable error) {
+            if (result.isDone()) {
+                return;
+            }
+            if (error == null && success.test(response)) {
+                good.add(response);
+            } else if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                bad.add(cause instanceof Exception ? (Exception) cause : new UnirestException(cause));
+            } else {
+                bad.add(new UnirestException("Response did not succeed: " + response.getStatus() + " " + response.getStatusText()));
+            }
+            if (good.size() >= needed) {
+                result.complete(new ArrayList<>(good));
+            } else if (total - bad.size() < needed) {
+                result.completeExceptionally(new UnirestException(new ArrayList<>(bad)));
+            }
+        }
+    }
+}
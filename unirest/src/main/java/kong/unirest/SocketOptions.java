@@ -0,0 +1,152 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of unirest-java are held by Kong Inc (c) 2013.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package kong.unirest;
+
+/**
+ * Low level socket options for the connections opened by the clients.
+ * Any option which is not set is left at the library default.
+ */
+public class SocketOptions {
+    private final Boolean tcpNoDelay;
+    private final Boolean keepAlive;
+    private final Integer receiveBufferSize;
+    private final Integer sendBufferSize;
+    private final Integer linger;
+
+    private SocketOptions(Builder builder) {
+        this.tcpNoDelay = builder.tcpNoDelay;
+        this.keepAlive = builder.keepAlive;
+        this.receiveBufferSize = builder.receiveBufferSize;
+        this.sendBufferSize = builder.sendBufferSize;
+        this.linger = builder.linger;
+    }
+
+    /**
+     * a builder for socket options
+     * @return a new Builder.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return if Nagle's algorithm is disabled (TCP_NODELAY), or null for the default
+     */
+    public Boolean getTcpNoDelay() {
+        return tcpNoDelay;
+    }
+
+    /**
+     * @return if TCP keep-alive probes are enabled (SO_KEEPALIVE), or null for the default
+     */
+    public Boolean getKeepAlive() {
+        return keepAlive;
+    }
+
+    /**
+     * @return the socket receive buffer size in bytes (SO_RCVBUF), or null for the default
+     */
+    public Integer getReceiveBufferSize() {
+        return receiveBufferSize;
+    }
+
+    /**
+     * @return the socket send buffer size in bytes (SO_SNDBUF), or null for the default
+     */
+    public Integer getSendBufferSize() {
+        return sendBufferSize;
+    }
+
+    /**
+     * @return the linger-on-close time in seconds (SO_LINGER), or null for the default
+     */
+    public Integer getLinger() {
+        return linger;
+    }
+
+    public static class Builder {
+        private Boolean tcpNoDelay;
+        private Boolean keepAlive;
+        private Integer receiveBufferSize;
+        private Integer sendBufferSize;
+        private Integer linger;
+
+        /**
+         * Disable (true) or enable (false) Nagle's algorithm. The default is true.
+         * Latency sensitive calls want this on, bulk transfers may benefit from turning it off.
+         * @param value a bool is its true or not.
+         * @return this builder.
+         */
+        public Builder tcpNoDelay(boolean value) {
+            this.tcpNoDelay = value;
+            return this;
+        }
+
+        /**
+         * Enable TCP keep-alive probes on idle connections. The default is false.
+         * @param value a bool is its true or not.
+         * @return this builder.
+         */
+        public Builder keepAlive(boolean value) {
+            this.keepAlive = value;
+            return this;
+        }
+
+        /**
+         * Set the socket receive buffer. The default is chosen by the operating system.
+         * @param bytes the buffer size in bytes
+         * @return this builder.
+         */
+        public Builder receiveBufferSize(int bytes) {
+            this.receiveBufferSize = bytes;
+            return this;
+        }
+
+        /**
+         * Set the socket send buffer. The default is chosen by the operating system.
+         * @param bytes the buffer size in bytes
+         * @return this builder.
+         */
+        public Builder sendBufferSize(int bytes) {
+            this.sendBufferSize = bytes;
+            return this;
+        }
+
+        /**
+         * Set the linger-on-close time. A negative value (the default) disables lingering.
+         * @param seconds the time to linger in seconds
+         * @return this builder.
+         */
+        public Builder linger(int seconds) {
+            this.linger = seconds;
+            return this;
+        }
+
+        public SocketOptions build() {
+            return new SocketOptions(this);
+        }
+    }
+}
@@ -0,0 +1,329 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of unirest-java are held by Kong Inc (c) 2013.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package kong.unirest;
+
+import org.apache.http.conn.ssl.DefaultHostnameVerifier;
+import org.apache.http.conn.ssl.NoopHostnameVerifier;
+
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.TrustManager;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.KeyStore;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The TLS settings of a Config, shared by the synchronous and asynchronous clients.
+ * Both clients open connections from the same SSLContext so that a session negotiated by one
+ * can be resumed by the other, and every handshake is counted as either full or resumed.
+ * <p>
+ * Resumption uses the client session cache of the SSLContext, which also holds the session tickets sent by
+ * servers when the JVM has them enabled (the default since Java 13, see jdk.tls.client.enableSessionTicketExtension).
+ * <p>
+ * Unless a custom SSLContext was configured, the key and trust material can be replaced while the clients run,
+ * either by calling the reload methods or by watching the keystore files (see {@link Config#watchTlsFiles}).
+ * New connections use the new material while existing connections carry on with the old one until they close.
+ */
+public class TlsContext {
+    private static ScheduledExecutorService watcher;
+
+    private final Config config;
+    private final SSLContext sslContext;
+    private final ReloadableKeyManager keys;
+    private final ReloadableTrustManager trust;
+    private final String[] protocols;
+    private final String[] ciphers;
+    private final HostnameVerifier hostnameVerifier;
+    private final LongAdder fullHandshakes = new LongAdder();
+    private final LongAdder resumedHandshakes = new LongAdder();
+    private final LongAdder reloads = new LongAdder();
+    private ScheduledFuture<?> watch;
+    private String keystoreVersion;
+    private String truststoreVersion;
+
+    TlsContext(Config config) {
+        this.config = config;
+        if (config.getSslContext() != null) {
+            this.sslContext = config.getSslContext();
+            this.keys = null;
+            this.trust = null;
+        } else {
+            this.keys = new ReloadableKeyManager();
+            this.trust = new ReloadableTrustManager();
+            keys.load(config.getKeystore(), config.getKeystore() == null ? null : config.getKeyStorePassword());
+            if (config.isVerifySsl()) {
+                trust.load(config.getTrustStore());
+            } else {
+                trust.trustAll();
+            }
+            this.sslContext = createSslContext(keys, trust);
+        }
+        this.protocols = config.getProtocols();
+        this.ciphers = config.getCiphers();
+        this.hostnameVerifier = createHostnameVerifier(config);
+        SSLSessionContext sessions = sslContext.getClientSessionContext();
+        if (sessions != null) {
+            if (config.getTlsSessionCacheSize() >= 0) {
+                sessions.setSessionCacheSize(config.getTlsSessionCacheSize());
+            }
+            if (config.getTlsSessionTimeout() >= 0) {
+                sessions.setSessionTimeout(config.getTlsSessionTimeout());
+            }
+        }
+    }
+
+    private static SSLContext createSslContext(KeyManager keys, TrustManager trust) {
+        try {
+            SSLContext context = SSLContext.getInstance("TLS");
+            context.init(new KeyManager[]{keys}, new TrustManager[]{trust}, null);
+            return context;
+        } catch (Exception e) {
+            throw new UnirestConfigException(e);
+        }
+    }
+
+    private static HostnameVerifier createHostnameVerifier(Config config) {
+        if (!config.isVerifySsl()) {
+            return NoopHostnameVerifier.INSTANCE;
+        }
+        if (config.getHostnameVerifier() != null) {
+            return config.getHostnameVerifier();
+        }
+        return new DefaultHostnameVerifier();
+    }
+
+    /**
+     * @return if the key and trust material can be replaced. False when a custom SSLContext was configured.
+     */
+    public boolean isReloadable() {
+        return keys != null;
+    }
+
+    /**
+     * Replace the client certificate used by new connections and drop the cached sessions
+     * so that no new connection resumes a session made with the old certificate.
+     *
+     * @param store the keystore with the client certificate, or null for none
+     * @param password the password for the store
+     * @throws UnirestConfigException if the context is not reloadable or the store can not be used
+     */
+    public void reloadKeyMaterial(KeyStore store, String password) {
+        verifyReloadable();
+        keys.load(store, password);
+        afterReload();
+    }
+
+    /**
+     * Replace the certificates trusted by new connections and drop the cached sessions.
+     * Has no effect on trust while ssl verification is turned off.
+     *
+     * @param store the trust store, or null for the JVM default
+     * @throws UnirestConfigException if the context is not reloadable or the store can not be used
+     */
+    public void reloadTrustMaterial(KeyStore store) {
+        verifyReloadable();
+        if (config.isVerifySsl()) {
+            trust.load(store);
+        }
+        afterReload();
+    }
+
+    private void verifyReloadable() {
+        if (!isReloadable()) {
+            throw new UnirestConfigException("The key material of a custom SSLContext can not be reloaded");
+        }
+    }
+
+    private void afterReload() {
+        SSLSessionContext sessions = sslContext.getClientSessionContext();
+        if (sessions != null) {
+            for (byte[] id : Collections.list(sessions.getIds())) {
+                SSLSession session = sessions.getSession(id);
+                if (session != null) {
+                    session.invalidate();
+                }
+            }
+        }
+        reloads.increment();
+    }
+
+    /**
+     * Poll the keystore and trust store files given to the config and reload them when they change.
+     */
+    synchronized void watch(long intervalMillis) {
+        if (watch != null || !isReloadable() || intervalMillis <= 0) {
+            return;
+        }
+        keystoreVersion = version(config.getKeystoreLocation());
+        truststoreVersion = version(config.getTrustStoreLocation());
+        watch = watcher().scheduleWithFixedDelay(this::checkFiles, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop watching the keystore files.
+     */
+    synchronized void close() {
+        if (watch != null) {
+            watch.cancel(false);
+            watch = null;
+        }
+    }
+
+    private void checkFiles() {
+        try {
+            String keyVersion = version(config.getKeystoreLocation());
+            if (!Objects.equals(keyVersion, keystoreVersion)) {
+                String password = config.getKeyStorePassword();
+                reloadKeyMaterial(load(config.getKeystoreLocation(), password), password);
+                keystoreVersion = keyVersion;
+            }
+            String trustVersion = version(config.getTrustStoreLocation());
+            if (!Objects.equals(trustVersion, truststoreVersion)) {
+                reloadTrustMaterial(load(config.getTrustStoreLocation(), config.getTrustStorePassword()));
+                truststoreVersion = trustVersion;
+            }
+        } catch (Exception e) {
+            // a half written file, try again on the next check
+        }
+    }
+
+    private static String version(String location) {
+        if (location == null) {
+            return null;
+        }
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(Paths.get(location), BasicFileAttributes.class);
+            return attributes.lastModifiedTime().toMillis() + ":" + attributes.size();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    static KeyStore load(String location, String password) {
+        if (location == null) {
+            return null;
+        }
+        Path path = Paths.get(location);
+        try (InputStream stream = Files.newInputStream(path)) {
+            KeyStore store = KeyStore.getInstance("PKCS12");
+            store.load(stream, password == null ? null : password.toCharArray());
+            return store;
+        } catch (Exception e) {
+            throw new UnirestConfigException(e);
+        }
+    }
+
+    private static synchronized ScheduledExecutorService watcher() {
+        if (watcher == null) {
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> {
+                Thread t = new Thread(r, "Unirest TLS File Watcher");
+                t.setDaemon(true);
+                return t;
+            });
+            executor.setRemoveOnCancelPolicy(true);
+            watcher = executor;
+        }
+        return watcher;
+    }
+
+    /**
+     * Count a completed handshake. A session which existed before the handshake started was resumed.
+     * @param session the negotiated session
+     * @param startedAt the time in milliseconds the handshake started
+     */
+    public void onHandshake(SSLSession session, long startedAt) {
+        if (session == null || !session.isValid()) {
+            return;
+        }
+        if (session.getCreationTime() < startedAt) {
+            resumedHandshakes.increment();
+        } else {
+            fullHandshakes.increment();
+        }
+    }
+
+    /**
+     * @return the SSLContext all connections are opened from
+     */
+    public SSLContext getSslContext() {
+        return sslContext;
+    }
+
+    /**
+     * @return the enabled protocols, or null for the defaults of the SSLContext
+     */
+    public String[] getProtocols() {
+        return protocols;
+    }
+
+    /**
+     * @return the enabled cipher suites, or null for the defaults of the SSLContext
+     */
+    public String[] getCiphers() {
+        return ciphers;
+    }
+
+    /**
+     * @return the verifier for the host names of server certificates
+     */
+    public HostnameVerifier getHostnameVerifier() {
+        return hostnameVerifier;
+    }
+
+    /**
+     * @return the number of handshakes which negotiated a new session
+     */
+    public long getFullHandshakes() {
+        return fullHandshakes.sum();
+    }
+
+    /**
+     * @return the number of handshakes which resumed a cached session
+     */
+    public long getResumedHandshakes() {
+        return resumedHandshakes.sum();
+    }
+
+    /**
+     * @return the number of times the key or trust material has been reloaded
+     */
+    public long getReloads() {
+        return reloads.sum();
+    }
+}
@@ -25,6 +25,9 @@
 
 package kong.unirest;
 
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * A Instance of the unirest runtime, you can have many of these but it is the config
  * and its clients where all the action happens.
@@ -66,6 +69,49 @@ public class UnirestInstance implements AutoCloseable {
         config.shutDown(clearOptions);
     }
 
+    /**
+     * Build the clients and open pooled connections to the origins before the first request needs them.
+     *
+     * @param origins the origins to connect to, in the form of scheme://host[:port]
+     * @param connectionsPerHost the number of connections to open per origin
+     * @return a future which completes when the connections are open
+     */
+    public CompletableFuture<Void> warmUp(Collection<String> origins, int connectionsPerHost) {
+        return config.warmUp(origins, connectionsPerHost);
+    }
+
+    /**
+     * Send many independent requests with bounded parallelism.
+     * Nothing is sent until one of the send methods of the bulk request is called.
+     *
+     * @param requests the requests, built from this instance
+     * @return a bulk request to set the limits on and send
+     */
+    public BulkRequest bulk(Collection<? extends HttpRequest<?>> requests) {
+        return new BulkRequest(config, requests);
+    }
+
+    /**
+     * Send the same logical request to several backends and gather the answers by a policy
+     * (first success, quorum or all), cancelling the rest once it is met.
+     *
+     * @param requests one request per backend, built from this instance
+     * @return a scatter-gather to set the policy on and send
+     */
+    public ScatterGather scatter(Collection<? extends HttpRequest<?>> requests) {
+        return new ScatterGather(requests);
+    }
+
+    /**
+     * Start a graph of requests which are built from each other's responses.
+     * Each runs on the async client as soon as the requests it depends on are done.
+     *
+     * @return an empty graph to add requests to and run
+     */
+    public RequestGraph graph() {
+        return new RequestGraph();
+    }
+
     /**
      * Start a GET HttpRequest which does not support a body from the primary config
      * @param url the endpoint to access. Can include placeholders for path params using curly braces {}
@@ -29,11 +29,13 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
+import java.nio.ByteBuffer;
 import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.Flow;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
 
@@ -69,6 +71,16 @@ class Util {
         return opt.map(Stream::of).orElseGet(Stream::empty);
     }
 
+    /**
+     * Wrap a failure for the caller, passing the more specific kinds of UnirestException through as they are
+     */
+    static UnirestException toUnirestException(Exception e) {
+        if (e instanceof UnirestException && e.getClass() != UnirestException.class) {
+            return (UnirestException) e;
+        }
+        return new UnirestException(e);
+    }
+
     static String nullToEmpty(Object v) {
         if (v == null) {
             return "";
@@ -111,4 +123,58 @@ class Util {
                 .findFirst()
                 .orElse(null);
     }
+
+    /**
+     * Publish a body which has already been read, as a single buffer
+     */
+    static Flow.Publisher<ByteBuffer> publish(byte[] content) {
+        return subscriber -> subscriber.onSubscribe(new Flow.Subscription() {
+            private boolean done;
+
+            @Override
+            public synchronized void request(long n) {
+                if (done) {
+                    return;
+                }
+                done = true;
+                if (n <= 0) {
+                    subscriber.onError(new IllegalArgumentException("The demand must be positive"));
+                    return;
+                }
+                if (content != null && content.length > 0) {
+                    subscriber.onNext(ByteBuffer.wrap(content));
+                }
+                subscriber.onComplete();
+            }
+
+            @Override
+            public synchronized void cancel() {
+                done = true;
+            }
+        });
+    }
+
+    /**
+     * Cancel a published body without reading it, which gives up its connection
+     */
+    static void discard(Flow.Publisher<ByteBuffer> body) {
+        body.subscribe(new Flow.Subscriber<ByteBuffer>() {
+            @Override
+            public void onSubscribe(Flow.Subscription s) {
+                s.cancel();
+            }
+
+            @Override
+            public void onNext(ByteBuffer item) {
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+    }
 }
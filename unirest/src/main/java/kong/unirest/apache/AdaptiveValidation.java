@@ -0,0 +1,73 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of unirest-java are held by Kong Inc (c) 2013.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package kong.unirest.apache;
+
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tunes the validate-after-inactivity period of a pool to the servers it talks to.
+ * Every stale connection failure halves the period, so a server which silently drops idle
+ * connections soon gets its connections checked before reuse. After a long enough run of
+ * error free reuse the period doubles again, up to the configured value, to save the round trip.
+ */
+class AdaptiveValidation {
+    private static final int FLOOR = 100;
+    private static final int GROWTH_AFTER = 1000;
+    private final HttpClientConnectionManager manager;
+    private final int ceiling;
+    private final AtomicInteger current;
+    private final AtomicInteger healthy = new AtomicInteger();
+
+    AdaptiveValidation(HttpClientConnectionManager manager, int ceiling) {
+        this.manager = manager;
+        this.ceiling = ceiling;
+        this.current = new AtomicInteger(ceiling);
+    }
+
+    void onReuse() {
+        if (current.get() < ceiling && healthy.incrementAndGet() >= GROWTH_AFTER) {
+            healthy.set(0);
+            update(Math.min(ceiling, current.get() * 2));
+        }
+    }
+
+    void onStale() {
+        healthy.set(0);
+        update(Math.max(FLOOR, current.get() / 2));
+    }
+
+    private void update(int value) {
+        if (current.getAndSet(value) != value) {
+            Util.tryCast(manager, PoolingHttpClientConnectionManager.class)
+                    .ifPresent(m -> m.setValidateAfterInactivity(value));
+            Util.tryCast(manager, StripedConnectionManager.class)
+                    .ifPresent(m -> m.setValidateAfterInactivity(value));
+        }
+    }
+}
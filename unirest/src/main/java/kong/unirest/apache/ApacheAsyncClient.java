@@ -34,13 +34,25 @@ import org.apache.http.nio.client.HttpAsyncClient;
 import org.apache.http.nio.protocol.BasicAsyncRequestProducer;
 import org.apache.http.nio.protocol.BasicAsyncResponseConsumer;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 import java.util.stream.Stream;
 
 
 public class ApacheAsyncClient extends BaseApacheClient implements AsyncClient {
+    private static final Set<HttpMethod> SAFE_METHODS = new HashSet<>(Arrays.asList(
+            HttpMethod.GET, HttpMethod.HEAD, HttpMethod.OPTIONS, HttpMethod.TRACE));
     private ApacheAsyncConfig apache;
 
     public ApacheAsyncClient(Config config) {
@@ -76,36 +88,259 @@ public class ApacheAsyncClient extends BaseApacheClient implements AsyncClient {
         HttpRequestSummary reqSum = request.toSummary();
         MetricContext metric = apache.config.getMetric().begin(reqSum);
         HttpHost host = determineTarget(requestObj, request.getHeaders());
-        apache.client.execute(new BasicAsyncRequestProducer(host, requestObj), new BasicAsyncResponseConsumer(), new FutureCallback<org.apache.http.HttpResponse>() {
+        if (apache.warmer != null) {
+            apache.warmer.onRequest(host);
+        }
+        Exchange<T> exchange = new Exchange<>(request, requestObj, host, transformer, callback, reqSum, metric);
+        exchange.deadline = Deadline.start(request, exchange::abort);
+        callback.whenComplete((r, e) -> {
+            if (callback.isCancelled()) {
+                exchange.abort();
+            }
+        });
+        AsyncLimiter limiter = apache.config.getAsyncLimiter();
+        if (limiter == null) {
+            exchange.start(null);
+        } else {
+            limiter.submit(RequestOptions.toRouteHost(host).toURI(), request.getPriority(), exchange::start, exchange::failed);
+        }
+        return callback;
+    }
+
+    @Override
+    public CompletableFuture<HttpResponse<Flow.Publisher<ByteBuffer>>> publish(HttpRequest request) {
+        CompletableFuture<HttpResponse<Flow.Publisher<ByteBuffer>>> callback = new CompletableFuture<>();
+        apache.config.getUniInterceptor().onRequest(request, apache.config);
+        HttpUriRequest requestObj = new RequestPrep(request, apache.config, true).prepare(configFactory);
+        HttpRequestSummary reqSum = request.toSummary();
+        MetricContext metric = apache.config.getMetric().begin(reqSum);
+        HttpHost host = determineTarget(requestObj, request.getHeaders());
+        if (apache.warmer != null) {
+            apache.warmer.onRequest(host);
+        }
+        PublishingResponseConsumer consumer = new PublishingResponseConsumer((r, body) -> dispatch(callback, () -> {
+            ApacheResponse t = new ApacheResponse(r, apache.config);
+            metric.complete(t.toSummary(), null);
+            HttpResponse<Flow.Publisher<ByteBuffer>> response = new BasicResponse<>(t, body);
+            apache.config.getUniInterceptor().onResponse(response, reqSum, apache.config);
+            callback.complete(response);
+        }));
+        FutureCallback<Void> done = new FutureCallback<Void>() {
             @Override
-            public void completed(org.apache.http.HttpResponse httpResponse) {
-                ApacheResponse t = new ApacheResponse(httpResponse, apache.config);
-                metric.complete(t.toSummary(), null);
-                HttpResponse<T> response = transformBody(transformer, t);
-                apache.config.getUniInterceptor().onResponse(response, reqSum, apache.config);
-                callback.complete(response);
+            public void completed(Void result) {
             }
 
             @Override
             public void failed(Exception e) {
-                metric.complete(null, e);
-                try {
-                    HttpResponse r = apache.config.getUniInterceptor().onFail(e, reqSum, apache.config);
-                    callback.complete(r);
-                } catch (Exception ee){
+                if (!consumer.isStarted()) {
+                    metric.complete(null, e);
                     callback.completeExceptionally(e);
                 }
+                consumer.fail(e);
             }
 
             @Override
             public void cancelled() {
+                failed(new UnirestException("canceled"));
+            }
+        };
+        Exception stopped = apache.getReactorFailure();
+        if (stopped != null) {
+            done.failed(new UnirestException("The IO reactor of the transport has stopped", stopped));
+            return callback;
+        }
+        try {
+            consumer.bind(apache.client.execute(new BasicAsyncRequestProducer(host, requestObj), consumer, done));
+        } catch (RuntimeException e) {
+            done.failed(e);
+        }
+        callback.whenComplete((r, e) -> {
+            if (callback.isCancelled()) {
+                consumer.cancelBody();
+            }
+        });
+        return callback;
+    }
+
+    /**
+     * One request on its way through the client. The permit from the async limiter, if any,
+     * is given back as soon as the client is done with the request.
+     * Cancelling the returned future or passing the deadline aborts the exchange in the client,
+     * which closes its connection, or fails it straight away if it has not been sent yet.
+     */
+    private class Exchange<T> implements FutureCallback<org.apache.http.HttpResponse> {
+        private final HttpRequest request;
+        private final HttpUriRequest requestObj;
+        private final HttpHost host;
+        private final Function<RawResponse, HttpResponse<T>> transformer;
+        private final CompletableFuture<HttpResponse<T>> callback;
+        private final HttpRequestSummary reqSum;
+        private final MetricContext metric;
+        private final AtomicBoolean done = new AtomicBoolean();
+        private volatile Deadline deadline;
+        private volatile AsyncLimiter.Permit permit;
+        private volatile Future<org.apache.http.HttpResponse> future;
+        private volatile boolean aborted;
+        private boolean replayed;
+
+        Exchange(HttpRequest request, HttpUriRequest requestObj, HttpHost host,
+                 Function<RawResponse, HttpResponse<T>> transformer, CompletableFuture<HttpResponse<T>> callback,
+                 HttpRequestSummary reqSum, MetricContext metric) {
+            this.request = request;
+            this.requestObj = requestObj;
+            this.host = host;
+            this.transformer = transformer;
+            this.callback = callback;
+            this.reqSum = reqSum;
+            this.metric = metric;
+        }
+
+        void start(AsyncLimiter.Permit permit) {
+            this.permit = permit;
+            if (done.get() || aborted) {
+                release();
+                return;
+            }
+            send();
+        }
+
+        private void send() {
+            Exception stopped = apache.getReactorFailure();
+            if (stopped != null) {
+                failed(new UnirestException("The IO reactor of the transport has stopped", stopped));
+                return;
+            }
+            try {
+                future = apache.client.execute(new BasicAsyncRequestProducer(host, requestObj), new BasicAsyncResponseConsumer(), this);
+                if (aborted) {
+                    future.cancel(true);
+                }
+            } catch (RuntimeException e) {
+                failed(e);
+            }
+        }
+
+        void abort() {
+            aborted = true;
+            Future<org.apache.http.HttpResponse> f = future;
+            if (f != null) {
+                f.cancel(true);
+            } else {
+                cancelled();
+            }
+        }
+
+        private boolean finish() {
+            if (deadline != null) {
+                deadline.cancel();
+            }
+            AsyncLimiter.Permit p = permit;
+            if (p != null) {
+                p.release();
+            }
+            return done.compareAndSet(false, true);
+        }
+
+        private void release() {
+            AsyncLimiter.Permit p = permit;
+            if (p != null) {
+                p.release();
+            }
+        }
+
+        @Override
+        public void completed(org.apache.http.HttpResponse httpResponse) {
+            if (!finish()) {
+                return;
+            }
+            dispatch(callback, () -> {
+                ApacheResponse t = new ApacheResponse(httpResponse, apache.config);
+                metric.complete(t.toSummary(), null);
+                HttpResponse<T> response = transformBody(transformer, t);
+                apache.config.getUniInterceptor().onResponse(response, reqSum, apache.config);
+                callback.complete(response);
+            });
+        }
+
+        @Override
+        public void failed(Exception e) {
+            if (!replayed && !aborted && canReplay(request, e)) {
+                replayed = true;
+                send();
+                return;
+            }
+            if (!finish()) {
+                return;
+            }
+            Exception failure = deadline != null ? deadline.explain(e) : e;
+            dispatch(callback, () -> {
+                metric.complete(null, failure);
+                try {
+                    HttpResponse r = apache.config.getUniInterceptor().onFail(failure, reqSum, apache.config);
+                    callback.complete(r);
+                } catch (Exception ee) {
+                    callback.completeExceptionally(failure);
+                }
+            });
+        }
+
+        @Override
+        public void cancelled() {
+            if (deadline != null && deadline.isExpired()) {
+                failed(deadline.timeout());
+                return;
+            }
+            if (!finish()) {
+                return;
+            }
+            dispatch(callback, () -> {
                 UnirestException canceled = new UnirestException("canceled");
                 metric.complete(null, canceled);
                 callback.completeExceptionally(canceled);
                 apache.config.getUniInterceptor().onFail(canceled, reqSum, apache.config);
-            }
-        });
-        return callback;
+            });
+        }
+    }
+
+    /**
+     * A safe request which failed because the pooled connection had been closed by the server
+     * never reached it, so it can be sent once more on a fresh connection.
+     */
+    private boolean canReplay(HttpRequest request, Exception e) {
+        return apache.config.isAutomaticRetries()
+                && SAFE_METHODS.contains(request.getHttpMethod())
+                && StaleConnectionRetryHandler.isStaleConnection(e);
+    }
+
+    /**
+     * The response consumer has already buffered the entity by the time the callback fires,
+     * so everything left (parsing, interceptors, user callbacks) can safely move off the IO dispatcher.
+     */
+    private <T> void dispatch(CompletableFuture<HttpResponse<T>> callback, Runnable task) {
+        Executor executor = apache.config.getCompletionExecutor();
+        if (executor == null) {
+            task.run();
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    callback.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            callback.completeExceptionally(new UnirestException(e));
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> warmUp(Collection<String> origins, int connectionsPerHost) {
+        if (apache.warmer == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return apache.warmer.warmUp(origins, connectionsPerHost);
     }
 
     @Override
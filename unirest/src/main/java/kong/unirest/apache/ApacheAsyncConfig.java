@@ -26,11 +26,10 @@
 package kong.unirest.apache;
 
 import kong.unirest.Config;
+import kong.unirest.TlsContext;
 import kong.unirest.UnirestConfigException;
 import org.apache.http.config.Registry;
 import org.apache.http.config.RegistryBuilder;
-import org.apache.http.conn.ssl.NoopHostnameVerifier;
-import org.apache.http.conn.ssl.TrustStrategy;
 import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
 import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
 import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
@@ -38,8 +37,7 @@ import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
 import org.apache.http.nio.client.HttpAsyncClient;
 import org.apache.http.nio.conn.NoopIOSessionStrategy;
 import org.apache.http.nio.conn.SchemeIOSessionStrategy;
-import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
-import org.apache.http.ssl.SSLContextBuilder;
+import org.apache.http.nio.reactor.ConnectingIOReactor;
 
 import java.io.Closeable;
 import java.util.Objects;
@@ -53,19 +51,29 @@ class ApacheAsyncConfig {
     final HttpAsyncClient client;
     final Config config;
     private AsyncIdleConnectionMonitorThread syncMonitor;
+    private IdleConnectionEvictor.Registration eviction;
     private PoolingNHttpClientConnectionManager manager;
+    private Transport transport;
+    private Transport.Lease lease;
+    ConnectionWarmer warmer;
     private boolean hookset;
 
     public ApacheAsyncConfig(Config config) {
         this.config = config;
         try {
-            manager = createConnectionManager();
-            manager.setMaxTotal(config.getMaxConnections());
-            manager.setDefaultMaxPerRoute(config.getMaxPerRoutes());
+            transport = config.getTransport();
+            if (transport != null) {
+                lease = transport.lease();
+            }
+            PoolingNHttpClientConnectionManager pool = transport != null
+                    ? transport.getAsyncManager()
+                    : (manager = createConnectionManager(config));
 
             HttpAsyncClientBuilder ab = HttpAsyncClientBuilder.create()
                     .setDefaultRequestConfig(RequestOptions.toRequestConfig(config))
-                    .setConnectionManager(manager)
+                    .setConnectionManager(pool)
+                    .setConnectionManagerShared(transport != null)
+                    .setKeepAliveStrategy(new KeepAliveStrategy(transport != null ? transport.getSettings() : config, null))
                     .setDefaultCredentialsProvider(toApacheCreds(config.getProxy()))
                     .useSystemProperties();
 
@@ -73,21 +81,28 @@ class ApacheAsyncConfig {
 
             CloseableHttpAsyncClient build = ab.build();
             build.start();
-            syncMonitor = new AsyncIdleConnectionMonitorThread(manager);
-            syncMonitor.tryStart();
+            if (transport != null) {
+                warmer = transport.getAsyncWarmer();
+            } else {
+                eviction = IdleConnectionEvictor.register(manager, config.getIdleConnectionTimeout(), config.getEvictionInterval());
+                warmer = new ConnectionWarmer.Async(config, manager);
+            }
             client = build;
             if (config.shouldAddShutdownHook()) {
                 registerShutdownHook();
             }
         } catch (Exception e) {
+            if (lease != null) {
+                lease.release();
+            }
             throw new UnirestConfigException(e);
         }
     }
 
     private void setOptions(HttpAsyncClientBuilder ab) {
-        if (!config.isVerifySsl()) {
-            disableSsl(ab);
-        }
+        TlsContext tls = config.getTlsContext();
+        ab.setSSLContext(tls.getSslContext());
+        ab.setSSLHostnameVerifier(tls.getHostnameVerifier());
         if (config.useSystemProperties()) {
             ab.useSystemProperties();
         }
@@ -100,39 +115,28 @@ class ApacheAsyncConfig {
         config.getInterceptor().forEach(ab::addInterceptorFirst);
     }
 
-    private PoolingNHttpClientConnectionManager createConnectionManager() throws Exception {
-        return new PoolingNHttpClientConnectionManager(new DefaultConnectingIOReactor(),
-                null,
-                getRegistry(),
+    static PoolingNHttpClientConnectionManager createConnectionManager(Config config) throws Exception {
+        ConnectingIOReactor reactor = new DefaultConnectingIOReactor(RequestOptions.toReactorConfig(config));
+        if (config.isRaceConnections()) {
+            reactor = new RacingConnectingIOReactor(reactor, config.getHostResolver(), config.getRaceStagger());
+        }
+        PoolingNHttpClientConnectionManager manager = new PoolingNHttpClientConnectionManager(reactor,
                 null,
+                getRegistry(config),
                 null,
+                config.getHostResolver()::resolve,
                 config.getTTL(), TimeUnit.MILLISECONDS);
+        manager.setMaxTotal(config.getMaxConnections());
+        manager.setDefaultMaxPerRoute(config.getMaxPerRoutes());
+        RequestOptions.routeLimits(config).forEach(manager::setMaxPerRoute);
+        return manager;
     }
 
-    private Registry<SchemeIOSessionStrategy> getRegistry() throws Exception {
-        if (config.isVerifySsl()) {
-            return RegistryBuilder.<SchemeIOSessionStrategy>create()
-                    .register("http", NoopIOSessionStrategy.INSTANCE)
-                    .register("https", SSLIOSessionStrategy.getDefaultStrategy())
-                    .build();
-        } else {
-            return RegistryBuilder.<SchemeIOSessionStrategy>create()
-                    .register("http", NoopIOSessionStrategy.INSTANCE)
-                    .register("https", new SSLIOSessionStrategy(new SSLContextBuilder()
-                            .loadTrustMaterial(null, (x509Certificates, s) -> true)
-                            .build(), NoopHostnameVerifier.INSTANCE))
-                    .build();
-        }
-    }
-
-
-    private void disableSsl(HttpAsyncClientBuilder ab) {
-        try {
-            ab.setSSLHostnameVerifier(NoopHostnameVerifier.INSTANCE);
-            ab.setSSLContext(new SSLContextBuilder().loadTrustMaterial(null, (TrustStrategy) (arg0, arg1) -> true).build());
-        } catch (Exception e) {
-            throw new UnirestConfigException(e);
-        }
+    private static Registry<SchemeIOSessionStrategy> getRegistry(Config config) {
+        return RegistryBuilder.<SchemeIOSessionStrategy>create()
+                .register("http", NoopIOSessionStrategy.INSTANCE)
+                .register("https", new TlsSessionStrategy(config.getTlsContext()))
+                .build();
     }
 
     public ApacheAsyncConfig(HttpAsyncClient client, Config config) {
@@ -151,6 +155,9 @@ class ApacheAsyncConfig {
         this.client = client;
         this.syncMonitor = monitor;
         this.manager = manager;
+        if (manager != null) {
+            this.warmer = new ConnectionWarmer.Async(config, manager);
+        }
     }
 
     public void registerShutdownHook() {
@@ -166,6 +173,13 @@ class ApacheAsyncConfig {
                 .orElse(true);
     }
 
+    /**
+     * @return the exception the IO reactor of the shared transport stopped with, if there is a transport and it has
+     */
+    Exception getReactorFailure() {
+        return transport != null ? transport.getReactorFailure() : null;
+    }
+
     public HttpAsyncClient getClient() {
         return client;
     }
@@ -176,7 +190,9 @@ class ApacheAsyncConfig {
                         .map(c -> Util.tryDo(c, Closeable::close))
                         .filter(Optional::isPresent)
                         .map(Optional::get),
+                Util.tryDo(eviction, IdleConnectionEvictor.Registration::cancel),
                 Util.tryDo(manager, PoolingNHttpClientConnectionManager::shutdown),
-                Util.tryDo(syncMonitor, Thread::interrupt));
+                Util.tryDo(syncMonitor, Thread::interrupt),
+                Util.tryDo(lease, Transport.Lease::release));
     }
 }
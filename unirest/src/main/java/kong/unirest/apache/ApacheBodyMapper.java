@@ -44,11 +44,13 @@ import org.apache.http.message.BasicNameValuePair;
 
 import java.io.File;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Flow;
 
 class ApacheBodyMapper {
 
@@ -78,6 +80,8 @@ class ApacheBodyMapper {
             return new StringEntity("", StandardCharsets.UTF_8);
         } else if (String.class.isAssignableFrom(bodyPart.getPartType())) {
             return new StringEntity((String) bodyPart.getValue(), b.getCharset());
+        } else if (Flow.Publisher.class.isAssignableFrom(bodyPart.getPartType())) {
+            return new PublisherEntity((Flow.Publisher<ByteBuffer>) bodyPart.getValue());
         } else if (InputStream.class.isAssignableFrom(bodyPart.getPartType())) {
             if (b.getMonitor() != null) {
                 return new InputStreamEntity(new MonitoringInputStream(
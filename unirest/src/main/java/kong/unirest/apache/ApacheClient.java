@@ -29,15 +29,18 @@ import kong.unirest.*;
 import org.apache.http.HttpHost;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.conn.HttpClientConnectionManager;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.client.HttpClients;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 
 import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collection;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Stream;
@@ -46,7 +49,12 @@ public class ApacheClient extends BaseApacheClient implements Client {
     private final HttpClient client;
     private final Config config;
     private final SecurityConfig security;
-    private final PoolingHttpClientConnectionManager manager;
+    private final HttpClientConnectionManager manager;
+    private IdleConnectionEvictor.Registration eviction;
+    private AdaptiveValidation validation;
+    private ConnectionWarmer warmer;
+    private Transport transport;
+    private Transport.Lease lease;
     private boolean hookset;
 
     public ApacheClient(Config config) {
@@ -57,12 +65,35 @@ public class ApacheClient extends BaseApacheClient implements Client {
     public ApacheClient(Config config, Consumer<HttpClientBuilder> builderConfig) {
         this.config = config;
         security = new SecurityConfig(config);
-        manager = security.createManager();
+        transport = config.getTransport();
+        if (transport != null) {
+            lease = transport.lease();
+            manager = transport.getSyncManager();
+            validation = transport.getValidation();
+        } else {
+            manager = security.createManager();
+            if (config.isAdaptiveValidation() && config.getValidateAfterInactivity() > 0) {
+                validation = new AdaptiveValidation(manager, config.getValidateAfterInactivity());
+            }
+        }
 
         HttpClientBuilder cb = HttpClients.custom();
-        setOptions(cb);
-        builderConfig.accept(cb);
-        client = cb.build();
+        try {
+            setOptions(cb);
+            builderConfig.accept(cb);
+            client = cb.build();
+        } catch (RuntimeException e) {
+            if (lease != null) {
+                lease.release();
+            }
+            throw e;
+        }
+        if (transport != null) {
+            warmer = transport.getSyncWarmer();
+        } else {
+            eviction = IdleConnectionEvictor.register(manager, config.getIdleConnectionTimeout(), config.getEvictionInterval());
+            warmer = ConnectionWarmer.Sync.of(config, manager);
+        }
     }
 
     @Deprecated // Use the builder instead, also, the PoolingHttpClientConnectionManager and SyncIdleConnectionMonitorThread don't get used here anyway
@@ -71,6 +102,9 @@ public class ApacheClient extends BaseApacheClient implements Client {
         this.security = new SecurityConfig(config);
         this.config = config;
         this.manager = clientManager;
+        if (clientManager != null) {
+            this.warmer = new ConnectionWarmer.Sync(config, clientManager);
+        }
     }
 
     public ApacheClient(HttpClient httpClient, Config config) {
@@ -92,26 +126,84 @@ public class ApacheClient extends BaseApacheClient implements Client {
     @Override
     public <T> HttpResponse<T> request(HttpRequest request,
                                        Function<RawResponse, HttpResponse<T>> transformer) {
+        return request(request, transformer, false);
+    }
+
+    @Override
+    public <T> HttpResponse<T> request(HttpRequest request,
+                                       Function<RawResponse, HttpResponse<T>> transformer,
+                                       Class<?> resultType) {
+        return request(request, transformer, false);
+    }
+
+    /**
+     * A streamed body keeps the connection past the return of the request.
+     * It is released once the content has been read to the end, or aborted if the content is closed before that.
+     */
+    @Override
+    public <T> HttpResponse<T> stream(HttpRequest request,
+                                      Function<RawResponse, HttpResponse<T>> transformer) {
+        return request(request, transformer, true);
+    }
+
+    private <T> HttpResponse<T> request(HttpRequest request,
+                                        Function<RawResponse, HttpResponse<T>> transformer,
+                                        boolean streaming) {
 
         HttpRequestSummary reqSum = request.toSummary();
         config.getUniInterceptor().onRequest(request, config);
         HttpRequestBase requestObj = new RequestPrep(request, config, false).prepare(configFactory);
         MetricContext metric = config.getMetric().begin(reqSum);
+        Deadline deadline = Deadline.start(request, requestObj::abort);
+        boolean held = false;
         try {
             HttpHost host = determineTarget(requestObj, request.getHeaders());
-            org.apache.http.HttpResponse execute = client.execute(host, requestObj);
-            ApacheResponse t = new ApacheResponse(execute, config);
+            if (warmer != null) {
+                warmer.onRequest(host);
+            }
+            org.apache.http.HttpResponse execute = execute(host, requestObj, request);
+            ApacheResponse t = streaming
+                    ? new ApacheResponse(execute, config, requestObj::releaseConnection)
+                    : new ApacheResponse(execute, config);
             metric.complete(t.toSummary(), null);
             HttpResponse<T> httpResponse = transformBody(transformer, t);
-            requestObj.releaseConnection();
+            deadline.check();
+            held = streaming && !httpResponse.getParsingError().isPresent();
+            if (!held) {
+                requestObj.releaseConnection();
+            }
             config.getUniInterceptor().onResponse(httpResponse, reqSum, config);
             return httpResponse;
         } catch (Exception e) {
-            metric.complete(null, e);
-            return (HttpResponse<T>) config.getUniInterceptor().onFail(e, reqSum, config);
+            Exception failure = deadline.explain(e);
+            metric.complete(null, failure);
+            return (HttpResponse<T>) config.getUniInterceptor().onFail(failure, reqSum, config);
+        } finally {
+            deadline.cancel();
+            if (!held) {
+                requestObj.releaseConnection();
+            }
+        }
+    }
+
+    private org.apache.http.HttpResponse execute(HttpHost host, HttpRequestBase requestObj, HttpRequest request) throws IOException {
+        if (!(manager instanceof StripedConnectionManager)) {
+            return client.execute(host, requestObj);
+        }
+        StripedConnectionManager.order(request.getPriority(), request.getTenant());
+        try {
+            return client.execute(host, requestObj);
         } finally {
-            requestObj.releaseConnection();
+            StripedConnectionManager.clearOrder();
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> warmUp(Collection<String> origins, int connectionsPerHost) {
+        if (warmer == null) {
+            return CompletableFuture.completedFuture(null);
         }
+        return warmer.warmUp(origins, connectionsPerHost);
     }
 
     @Override
@@ -120,7 +212,7 @@ public class ApacheClient extends BaseApacheClient implements Client {
     }
 
     public PoolingHttpClientConnectionManager getManager() {
-        return manager;
+        return Util.tryCast(manager, PoolingHttpClientConnectionManager.class).orElse(null);
     }
 
     @Override
@@ -135,10 +227,13 @@ public class ApacheClient extends BaseApacheClient implements Client {
         cb.setDefaultRequestConfig(RequestOptions.toRequestConfig(config))
                 .setDefaultCredentialsProvider(toApacheCreds(config.getProxy()))
                 .setConnectionManager(manager)
-                .evictIdleConnections(30, TimeUnit.SECONDS);
+                .setConnectionManagerShared(transport != null)
+                .setKeepAliveStrategy(new KeepAliveStrategy(transport != null ? transport.getSettings() : config, validation));
 
         security.configureSecurity(cb);
-        if (!config.isAutomaticRetries()) {
+        if (config.isAutomaticRetries()) {
+            cb.setRetryHandler(new StaleConnectionRetryHandler(validation));
+        } else {
             cb.disableAutomaticRetries();
         }
         if (!config.isRequestCompressionOn()) {
@@ -165,7 +260,9 @@ public class ApacheClient extends BaseApacheClient implements Client {
                         .map(c -> Util.tryDo(c, Closeable::close))
                         .filter(Optional::isPresent)
                         .map(Optional::get),
-                Util.tryDo(manager, PoolingHttpClientConnectionManager::close)
+                Util.tryDo(eviction, IdleConnectionEvictor.Registration::cancel),
+                Util.tryDo(transport == null ? manager : null, HttpClientConnectionManager::shutdown),
+                Util.tryDo(lease, Transport.Lease::release)
         );
     }
 
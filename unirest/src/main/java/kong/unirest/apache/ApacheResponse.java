@@ -37,10 +37,22 @@ import java.util.zip.GZIPInputStream;
 
 class ApacheResponse extends RawResponseBase {
     private final HttpResponse r;
+    private final Runnable release;
 
     public ApacheResponse(HttpResponse r, Config config) {
+        this(r, config, null);
+    }
+
+    /**
+     * @param r the response
+     * @param config the config
+     * @param release releases (or aborts) the connection. When given, closing the content runs it
+     *                instead of reading the rest of the content to reuse the connection.
+     */
+    ApacheResponse(HttpResponse r, Config config, Runnable release) {
         super(config);
         this.r = r;
+        this.release = release;
     }
 
     @Override
@@ -66,7 +78,7 @@ class ApacheResponse extends RawResponseBase {
         try {
             HttpEntity entity = r.getEntity();
             if (entity != null) {
-                return entity.getContent();
+                return release == null ? entity.getContent() : new Releasing(entity.getContent());
             }
             return new ByteArrayInputStream(new byte[0]);
         } catch (IOException e) {
@@ -176,4 +188,22 @@ class ApacheResponse extends RawResponseBase {
     private static boolean isGzipped(String value) {
         return "gzip".equalsIgnoreCase(value.toLowerCase().trim());
     }
+
+    /**
+     * Aborts the rest of the content on close rather than reading through it
+     */
+    private class Releasing extends FilterInputStream {
+        Releasing(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                release.run();
+            } finally {
+                super.close();
+            }
+        }
+    }
 }
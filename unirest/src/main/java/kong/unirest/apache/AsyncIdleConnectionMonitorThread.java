@@ -29,6 +29,10 @@ import java.util.concurrent.TimeUnit;
 
 import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
 
+/**
+ * @deprecated the clients now share a single evictor thread, see Config.idleConnectionTimeout
+ */
+@Deprecated
 public class AsyncIdleConnectionMonitorThread extends Thread {
 
 	private final PoolingNHttpClientConnectionManager connMgr;
@@ -0,0 +1,263 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of unirest-java are held by Kong Inc (c) 2013.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package kong.unirest.apache;
+
+import kong.unirest.Config;
+import kong.unirest.UnirestException;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpHost;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.nio.NHttpClientConnection;
+import org.apache.http.nio.conn.NHttpClientConnectionManager;
+import org.apache.http.pool.ConnPoolControl;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.IOException;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Opens pooled connections ahead of demand. Either all at once for a list of origins (warm up),
+ * or a few at a time for a route whose pool is close to being exhausted (predictive connect).
+ * Connections are opened by leasing them all at the same time, so that the pool can not hand
+ * back the same idle connection, and then releasing them as reusable.
+ */
+abstract class ConnectionWarmer {
+    private static ExecutorService executor;
+    private final Set<HttpRoute> predicting = ConcurrentHashMap.newKeySet();
+    protected final Config config;
+    private final ConnPoolControl<HttpRoute> pool;
+
+    ConnectionWarmer(Config config, ConnPoolControl<HttpRoute> pool) {
+        this.config = config;
+        this.pool = pool;
+    }
+
+    CompletableFuture<Void> warmUp(Collection<String> origins, int connectionsPerHost) {
+        CompletableFuture<?>[] all = origins.stream()
+                .map(RequestOptions::toRouteHost)
+                .map(host -> resolve(host).thenCompose(h -> open(RequestOptions.toRoute(h), connectionsPerHost)))
+                .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(all);
+    }
+
+    /**
+     * Called before each request, opens a few extra connections when the route is about to run out of idle ones.
+     */
+    void onRequest(HttpHost target) {
+        if (config.getPredictiveThreshold() <= 0 || target == null || config.getProxy() != null) {
+            return;
+        }
+        HttpRoute route = RequestOptions.toRoute(RequestOptions.toRouteHost(target));
+        PoolStats stats = pool.getStats(route);
+        int open = stats.getLeased() + stats.getAvailable();
+        int headroom = stats.getMax() - open;
+        int busy = stats.getLeased() + stats.getPending();
+        if (stats.getAvailable() == 0
+                && headroom > 0
+                && busy >= stats.getMax() * config.getPredictiveThreshold()
+                && predicting.add(route)) {
+            open(route, Math.min(headroom, config.getPredictiveConnections()))
+                    .whenComplete((v, e) -> predicting.remove(route));
+        }
+    }
+
+    private CompletableFuture<HttpHost> resolve(HttpHost host) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                config.getHostResolver().resolve(host.getHostName());
+                return host;
+            } catch (UnknownHostException e) {
+                throw new UnirestException(e);
+            }
+        }, executor());
+    }
+
+    private CompletableFuture<Void> open(HttpRoute route, int count) {
+        if (config.getProxy() != null || count <= 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return connect(route, Math.min(count, pool.getMaxPerRoute(route)));
+    }
+
+    protected abstract CompletableFuture<Void> connect(HttpRoute route, int count);
+
+    protected static synchronized ExecutorService executor() {
+        if (executor == null) {
+            executor = Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "Unirest Connection Warmer");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return executor;
+    }
+
+    static class Sync extends ConnectionWarmer {
+        private final HttpClientConnectionManager manager;
+
+        <M extends HttpClientConnectionManager & ConnPoolControl<HttpRoute>> Sync(Config config, M manager) {
+            super(config, manager);
+            this.manager = manager;
+        }
+
+        /**
+         * For a manager only known by its interface. Both sync pools Unirest builds are also a ConnPoolControl.
+         */
+        @SuppressWarnings("unchecked")
+        static Sync of(Config config, HttpClientConnectionManager manager) {
+            return new Sync(config, manager, (ConnPoolControl<HttpRoute>) manager);
+        }
+
+        private Sync(Config config, HttpClientConnectionManager manager, ConnPoolControl<HttpRoute> pool) {
+            super(config, pool);
+            this.manager = manager;
+        }
+
+        @Override
+        protected CompletableFuture<Void> connect(HttpRoute route, int count) {
+            return CompletableFuture.runAsync(() -> {
+                List<HttpClientConnection> leased = new ArrayList<>();
+                try {
+                    HttpClientContext context = HttpClientContext.create();
+                    for (int i = 0; i < count; i++) {
+                        ConnectionRequest request = manager.requestConnection(route, null);
+                        HttpClientConnection conn = request.get(config.getConnectionTimeout(), TimeUnit.MILLISECONDS);
+                        leased.add(conn);
+                        if (!conn.isOpen()) {
+                            manager.connect(conn, route, config.getConnectionTimeout(), context);
+                            manager.routeComplete(conn, route, context);
+                        }
+                    }
+                } catch (Exception e) {
+                    throw new UnirestException(e);
+                } finally {
+                    leased.forEach(c -> manager.releaseConnection(c, null, config.getKeepAliveTimeout(), TimeUnit.MILLISECONDS));
+                }
+            }, executor());
+        }
+    }
+
+    static class Async extends ConnectionWarmer {
+        private final NHttpClientConnectionManager manager;
+
+        <M extends NHttpClientConnectionManager & ConnPoolControl<HttpRoute>> Async(Config config, M manager) {
+            super(config, manager);
+            this.manager = manager;
+        }
+
+        @Override
+        protected CompletableFuture<Void> connect(HttpRoute route, int count) {
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            Queue<NHttpClientConnection> leased = new ConcurrentLinkedQueue<>();
+            AtomicInteger remaining = new AtomicInteger(count);
+            AtomicReference<Exception> failure = new AtomicReference<>();
+            Runnable countDown = () -> {
+                if (remaining.decrementAndGet() == 0) {
+                    leased.forEach(c -> manager.releaseConnection(c, null, config.getKeepAliveTimeout(), TimeUnit.MILLISECONDS));
+                    if (failure.get() == null) {
+                        done.complete(null);
+                    } else {
+                        done.completeExceptionally(new UnirestException(failure.get()));
+                    }
+                }
+            };
+            for (int i = 0; i < count; i++) {
+                manager.requestConnection(route, null, config.getConnectionTimeout(), config.getConnectionTimeout(),
+                        TimeUnit.MILLISECONDS, new FutureCallback<NHttpClientConnection>() {
+                            @Override
+                            public void completed(NHttpClientConnection conn) {
+                                leased.add(conn);
+                                establish(conn, route).whenComplete((v, e) -> {
+                                    if (e != null) {
+                                        failure.compareAndSet(null, e instanceof Exception ? (Exception) e : new UnirestException(e));
+                                    }
+                                    countDown.run();
+                                });
+                            }
+
+                            @Override
+                            public void failed(Exception e) {
+                                failure.compareAndSet(null, e);
+                                countDown.run();
+                            }
+
+                            @Override
+                            public void cancelled() {
+                                failure.compareAndSet(null, new UnirestException("canceled"));
+                                countDown.run();
+                            }
+                        });
+            }
+            return done;
+        }
+
+        /**
+         * Connects the route of a new connection. On a TLS route the handshake is only started here
+         * and goes on on the reactor, so the connection is not counted as open until it has been verified.
+         */
+        private CompletableFuture<Void> establish(NHttpClientConnection conn, HttpRoute route) {
+            CompletableFuture<Void> handshake = new CompletableFuture<>();
+            HttpContext session = conn.getContext();
+            try {
+                if (manager.isRouteComplete(conn)) {
+                    return CompletableFuture.completedFuture(null);
+                }
+                session.setAttribute(TlsSessionStrategy.HANDSHAKE_DONE, handshake);
+                HttpClientContext context = HttpClientContext.create();
+                manager.startRoute(conn, route, context);
+                manager.routeComplete(conn, route, context);
+            } catch (IOException e) {
+                handshake.completeExceptionally(e);
+            }
+            if (session.getAttribute(TlsSessionStrategy.HANDSHAKE_START) == null) {
+                // not upgraded to TLS, or the handshake is already over
+                handshake.complete(null);
+            }
+            if (config.getConnectionTimeout() > 0) {
+                handshake.orTimeout(config.getConnectionTimeout(), TimeUnit.MILLISECONDS);
+            }
+            return handshake;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of unirest-java are held by Kong Inc (c) 2013.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package kong.unirest.apache;
+
+import kong.unirest.HttpRequest;
+import kong.unirest.UnirestTimeoutException;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The deadline of one request on the timer wheel. When it passes the request is aborted,
+ * and whatever failure the abort causes is reported as the deadline having passed.
+ */
+class Deadline {
+    private static final Deadline NONE = new Deadline(0);
+    private final int timeout;
+    private volatile boolean expired;
+    private volatile TimerWheel.Timeout scheduled;
+
+    private Deadline(int timeout) {
+        this.timeout = timeout;
+    }
+
+    static Deadline start(HttpRequest request, Runnable abort) {
+        Instant at = request.getDeadline();
+        if (at == null) {
+            return NONE;
+        }
+        Deadline deadline = new Deadline(request.getRequestTimeout());
+        long remaining = at.toEpochMilli() - System.currentTimeMillis();
+        deadline.scheduled = TimerWheel.shared().schedule(() -> {
+            deadline.expired = true;
+            abort.run();
+        }, remaining, TimeUnit.MILLISECONDS);
+        return deadline;
+    }
+
+    boolean isExpired() {
+        return expired;
+    }
+
+    /**
+     * Fail a request which got to the end just as it was aborted, as its response may be cut short.
+     */
+    void check() {
+        if (expired) {
+            throw timeout();
+        }
+    }
+
+    Exception explain(Exception e) {
+        return expired && !(e instanceof UnirestTimeoutException) ? timeout() : e;
+    }
+
+    UnirestTimeoutException timeout() {
+        return new UnirestTimeoutException("Request not complete within its deadline of " + timeout + "ms");
+    }
+
+    void cancel() {
+        if (scheduled != null) {
+            scheduled.cancel();
+        }
+    }
+}
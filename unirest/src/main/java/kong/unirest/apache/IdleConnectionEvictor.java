@@ -0,0 +1,141 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of unirest-java are held by Kong Inc (c) 2013.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package kong.unirest.apache;
+
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.nio.conn.NHttpClientConnectionManager;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A single daemon thread which evicts expired and idle connections for every pool in the JVM.
+ * Expired connections include those past the server's Keep-Alive: timeout= hint, as the keep-alive strategy
+ * sets the connection expiry from it. Every pool is checked on its own jittered schedule
+ * so that pools created together don't close (and then re-open) their connections together.
+ */
+final class IdleConnectionEvictor {
+    private static final double JITTER = 0.2;
+    private static ScheduledExecutorService scheduler;
+
+    private IdleConnectionEvictor() {
+    }
+
+    static Registration register(HttpClientConnectionManager manager, long idleMillis, long intervalMillis) {
+        return register(new Pool() {
+            @Override
+            public void closeExpired() {
+                manager.closeExpiredConnections();
+            }
+
+            @Override
+            public void closeIdle(long millis) {
+                manager.closeIdleConnections(millis, TimeUnit.MILLISECONDS);
+            }
+        }, idleMillis, intervalMillis);
+    }
+
+    static Registration register(NHttpClientConnectionManager manager, long idleMillis, long intervalMillis) {
+        return register(new Pool() {
+            @Override
+            public void closeExpired() {
+                manager.closeExpiredConnections();
+            }
+
+            @Override
+            public void closeIdle(long millis) {
+                manager.closeIdleConnections(millis, TimeUnit.MILLISECONDS);
+            }
+        }, idleMillis, intervalMillis);
+    }
+
+    private static Registration register(Pool pool, long idleMillis, long intervalMillis) {
+        Registration registration = new Registration(pool, idleMillis, intervalMillis);
+        registration.schedule(ThreadLocalRandom.current().nextLong(intervalMillis + 1));
+        return registration;
+    }
+
+    private static synchronized ScheduledExecutorService scheduler() {
+        if (scheduler == null) {
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> {
+                Thread t = new Thread(r, "Unirest Idle Connection Evictor");
+                t.setDaemon(true);
+                return t;
+            });
+            executor.setRemoveOnCancelPolicy(true);
+            scheduler = executor;
+        }
+        return scheduler;
+    }
+
+    private interface Pool {
+        void closeExpired();
+        void closeIdle(long millis);
+    }
+
+    static class Registration {
+        private final Pool pool;
+        private final long idleMillis;
+        private final long intervalMillis;
+        private ScheduledFuture<?> next;
+        private boolean cancelled;
+
+        private Registration(Pool pool, long idleMillis, long intervalMillis) {
+            this.pool = pool;
+            this.idleMillis = idleMillis;
+            this.intervalMillis = intervalMillis;
+        }
+
+        private synchronized void schedule(long delay) {
+            if (!cancelled) {
+                next = scheduler().schedule(this::evict, delay, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private void evict() {
+            try {
+                pool.closeExpired();
+                if (idleMillis > 0) {
+                    pool.closeIdle(idleMillis);
+                }
+            } catch (RuntimeException e) {
+                // the pool may be shutting down, in which case cancel will follow shortly
+            }
+            double jitter = 1 + (ThreadLocalRandom.current().nextDouble() * 2 - 1) * JITTER;
+            schedule(Math.round(intervalMillis * jitter));
+        }
+
+        synchronized void cancel() {
+            cancelled = true;
+            if (next != null) {
+                next.cancel(false);
+            }
+        }
+    }
+}
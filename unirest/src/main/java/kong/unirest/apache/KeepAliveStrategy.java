@@ -0,0 +1,105 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of unirest-java are held by Kong Inc (c) 2013.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package kong.unirest.apache;
+
+import kong.unirest.Config;
+import org.apache.http.HeaderElement;
+import org.apache.http.HeaderElementIterator;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.routing.RouteInfo;
+import org.apache.http.message.BasicHeaderElementIterator;
+import org.apache.http.protocol.HTTP;
+import org.apache.http.protocol.HttpContext;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Decides how long a connection may be reused from the server's Keep-Alive header,
+ * capped by the configured keep alive timeout of the route (or the config default).
+ * A small margin is taken off the server's timeout so the client retires the connection
+ * before the server closes it, rather than racing it.
+ */
+class KeepAliveStrategy implements ConnectionKeepAliveStrategy {
+    private static final long SAFETY_MARGIN = 500;
+    private final long defaultTimeout;
+    private final Map<HttpHost, Long> routeTimeouts = new HashMap<>();
+    private final AdaptiveValidation validation;
+
+    KeepAliveStrategy(Config config, AdaptiveValidation validation) {
+        this.defaultTimeout = config.getKeepAliveTimeout();
+        this.validation = validation;
+        config.getRouteKeepAliveTimeouts()
+                .forEach((origin, timeout) -> routeTimeouts.put(RequestOptions.toRouteHost(origin), timeout));
+    }
+
+    @Override
+    public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+        if (validation != null) {
+            validation.onReuse();
+        }
+        long max = getMaxTimeout(context);
+        long announced = getAnnouncedTimeout(response);
+        if (announced < 0) {
+            return max;
+        }
+        long hint = Math.max(1, Math.max(announced - SAFETY_MARGIN, announced / 2));
+        return max > 0 ? Math.min(hint, max) : hint;
+    }
+
+    private long getMaxTimeout(HttpContext context) {
+        if (!routeTimeouts.isEmpty()) {
+            HttpClientContext clientContext = HttpClientContext.adapt(context);
+            RouteInfo route = clientContext.getHttpRoute();
+            HttpHost target = route != null ? route.getTargetHost() : clientContext.getTargetHost();
+            if (target != null) {
+                Long timeout = routeTimeouts.get(RequestOptions.toRouteHost(target));
+                if (timeout != null) {
+                    return timeout;
+                }
+            }
+        }
+        return defaultTimeout;
+    }
+
+    private static long getAnnouncedTimeout(HttpResponse response) {
+        HeaderElementIterator it = new BasicHeaderElementIterator(response.headerIterator(HTTP.CONN_KEEP_ALIVE));
+        while (it.hasNext()) {
+            HeaderElement he = it.nextElement();
+            if (he.getValue() != null && "timeout".equalsIgnoreCase(he.getName())) {
+                try {
+                    return Long.parseLong(he.getValue().trim()) * 1000;
+                } catch (NumberFormatException ignore) {
+                    // ignore a malformed value like the default apache strategy does
+                }
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,195 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of unirest-java are held by Kong Inc (c) 2013.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package kong.unirest.apache;
+
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.nio.ContentEncoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.entity.HttpAsyncContentProducer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A chunked entity that pulls its content from a Flow.Publisher.
+ * Only a few buffers are requested ahead, and more are requested as the previous ones are written out.
+ * On the async client the output is suspended while the publisher has nothing ready
+ * and resumed when it produces something, rather than holding the reactor thread.
+ */
+class PublisherEntity extends AbstractHttpEntity implements HttpAsyncContentProducer, Flow.Subscriber<ByteBuffer> {
+    private static final int PREFETCH = 4;
+    private static final Object END = new Object();
+
+    private final Flow.Publisher<ByteBuffer> publisher;
+    private final BlockingQueue<Object> signals = new LinkedBlockingQueue<>();
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+    private volatile Flow.Subscription subscription;
+    private volatile IOControl control;
+    private volatile boolean finished;
+
+    PublisherEntity(Flow.Publisher<ByteBuffer> publisher) {
+        this.publisher = publisher;
+        setChunked(true);
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return false;
+    }
+
+    @Override
+    public long getContentLength() {
+        return -1;
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return !finished;
+    }
+
+    @Override
+    public InputStream getContent() {
+        throw new UnsupportedOperationException("A publisher body can only be written");
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        subscribe();
+        try {
+            while (true) {
+                Object signal = signals.take();
+                if (signal == END) {
+                    finished = true;
+                    return;
+                }
+                ByteBuffer buffer = toBuffer(signal);
+                if (buffer.hasArray()) {
+                    out.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+                } else {
+                    byte[] bytes = new byte[buffer.remaining()];
+                    buffer.get(bytes);
+                    out.write(bytes);
+                }
+                subscription.request(1);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new InterruptedIOException("Interrupted while waiting on the body publisher");
+        }
+    }
+
+    @Override
+    public void produceContent(ContentEncoder encoder, IOControl ioctrl) throws IOException {
+        control = ioctrl;
+        subscribe();
+        Object signal;
+        while ((signal = signals.peek()) != null) {
+            if (signal == END) {
+                finished = true;
+                encoder.complete();
+                return;
+            }
+            ByteBuffer buffer = toBuffer(signal);
+            encoder.write(buffer);
+            if (buffer.hasRemaining()) {
+                return;
+            }
+            signals.poll();
+            subscription.request(1);
+        }
+        ioctrl.suspendOutput();
+        if (!signals.isEmpty()) {
+            ioctrl.requestOutput();
+        }
+    }
+
+    @Override
+    public void close() {
+        Flow.Subscription s = subscription;
+        if (!finished && s != null) {
+            finished = true;
+            s.cancel();
+        }
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription s) {
+        if (subscription != null) {
+            s.cancel();
+            return;
+        }
+        subscription = s;
+        s.request(PREFETCH);
+    }
+
+    @Override
+    public void onNext(ByteBuffer item) {
+        signals.add(item);
+        wake();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        signals.add(throwable);
+        wake();
+    }
+
+    @Override
+    public void onComplete() {
+        signals.add(END);
+        wake();
+    }
+
+    private void subscribe() {
+        if (subscribed.compareAndSet(false, true)) {
+            publisher.subscribe(this);
+        }
+    }
+
+    private void wake() {
+        IOControl c = control;
+        if (c != null) {
+            c.requestOutput();
+        }
+    }
+
+    private ByteBuffer toBuffer(Object signal) throws IOException {
+        if (signal instanceof Throwable) {
+            finished = true;
+            Throwable e = (Throwable) signal;
+            throw e instanceof IOException ? (IOException) e : new IOException("The body publisher failed", e);
+        }
+        return (ByteBuffer) signal;
+    }
+}
@@ -0,0 +1,207 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of unirest-java are held by Kong Inc (c) 2013.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package kong.unirest.apache;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.protocol.AbstractAsyncResponseConsumer;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * Hands the head of the response over as soon as it arrives, and publishes the body
+ * to a single subscriber as it comes off the connection.
+ * Nothing is buffered beyond one read: when the subscriber has no outstanding demand the input
+ * of the connection is suspended, and it is only resumed once more is requested.
+ * The bytes are passed on as they were received, so content encodings are left to the subscriber.
+ */
+class PublishingResponseConsumer extends AbstractAsyncResponseConsumer<Void> {
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private final BiConsumer<HttpResponse, Flow.Publisher<ByteBuffer>> onHead;
+    private final Body body = new Body();
+    private final AtomicLong demand = new AtomicLong();
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+    private final AtomicBoolean terminated = new AtomicBoolean();
+    private volatile Flow.Subscriber<? super ByteBuffer> subscriber;
+    private volatile IOControl control;
+    private volatile Future<?> future;
+    private volatile boolean started;
+    private volatile boolean suspended;
+    private volatile boolean cancelled;
+    private volatile boolean done;
+    private volatile Throwable error;
+
+    PublishingResponseConsumer(BiConsumer<HttpResponse, Flow.Publisher<ByteBuffer>> onHead) {
+        this.onHead = onHead;
+    }
+
+    void bind(Future<?> future) {
+        this.future = future;
+        if (cancelled) {
+            future.cancel(true);
+        }
+    }
+
+    void cancelBody() {
+        body.cancel();
+    }
+
+    boolean isStarted() {
+        return started;
+    }
+
+    void fail(Throwable e) {
+        error = e;
+        done = true;
+        terminate();
+    }
+
+    @Override
+    protected void onResponseReceived(HttpResponse response) {
+        started = true;
+        onHead.accept(response, body);
+    }
+
+    @Override
+    protected void onEntityEnclosed(HttpEntity entity, ContentType contentType) {
+    }
+
+    @Override
+    protected void onContentReceived(ContentDecoder decoder, IOControl ioctrl) throws IOException {
+        control = ioctrl;
+        while (!cancelled && demand.get() > 0) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            int read = decoder.read(buffer);
+            if (read > 0) {
+                buffer.flip();
+                demand.decrementAndGet();
+                subscriber.onNext(buffer);
+            }
+            if (read <= 0 || decoder.isCompleted()) {
+                return;
+            }
+        }
+        if (!cancelled && !decoder.isCompleted()) {
+            suspended = true;
+            ioctrl.suspendInput();
+            if (demand.get() > 0) {
+                resume();
+            }
+        }
+    }
+
+    @Override
+    protected Void buildResult(HttpContext context) {
+        done = true;
+        terminate();
+        return null;
+    }
+
+    @Override
+    protected void releaseResources() {
+    }
+
+    private void resume() {
+        IOControl c = control;
+        if (c != null && suspended) {
+            suspended = false;
+            c.requestInput();
+        }
+    }
+
+    private void terminate() {
+        Flow.Subscriber<? super ByteBuffer> s = subscriber;
+        if (s == null || cancelled || !terminated.compareAndSet(false, true)) {
+            return;
+        }
+        if (error != null) {
+            s.onError(error);
+        } else {
+            s.onComplete();
+        }
+    }
+
+    private class Body implements Flow.Publisher<ByteBuffer>, Flow.Subscription {
+        @Override
+        public void subscribe(Flow.Subscriber<? super ByteBuffer> s) {
+            Objects.requireNonNull(s);
+            if (!subscribed.compareAndSet(false, true)) {
+                s.onSubscribe(new Flow.Subscription() {
+                    @Override
+                    public void request(long n) {
+                    }
+
+                    @Override
+                    public void cancel() {
+                    }
+                });
+                s.onError(new IllegalStateException("The body of a response can only be subscribed to once"));
+                return;
+            }
+            subscriber = s;
+            s.onSubscribe(this);
+            if (done) {
+                terminate();
+            }
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                fail(new IllegalArgumentException("Demand must be positive but was " + n));
+                cancel();
+                return;
+            }
+            demand.getAndUpdate(d -> d + n < 0 ? Long.MAX_VALUE : d + n);
+            if (done) {
+                terminate();
+            } else {
+                resume();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            Future<?> f = future;
+            if (f != null) {
+                f.cancel(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,309 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of unirest-java are held by Kong Inc (c) 2013.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package kong.unirest.apache;
+
+import kong.unirest.HostResolver;
+import org.apache.http.HttpHost;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.nio.reactor.ConnectingIOReactor;
+import org.apache.http.nio.reactor.IOEventDispatch;
+import org.apache.http.nio.reactor.IOReactorStatus;
+import org.apache.http.nio.reactor.IOSession;
+import org.apache.http.nio.reactor.SessionRequest;
+import org.apache.http.nio.reactor.SessionRequestCallback;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Races the addresses of a host for the asynchronous client, the same way the RacingConnectionOperator
+ * does for the synchronous one. The connection pool only ever connects to the first resolved address,
+ * so every connect for a host with more than one address is turned into a set of staggered attempts
+ * on the underlying reactor, which the pool sees as a single session request.
+ */
+class RacingConnectingIOReactor implements ConnectingIOReactor {
+    private static ScheduledExecutorService scheduler;
+
+    private final ConnectingIOReactor delegate;
+    private final HostResolver resolver;
+    private final long stagger;
+    private final Map<String, InetAddress> winners = new ConcurrentHashMap<>();
+
+    RacingConnectingIOReactor(ConnectingIOReactor delegate, HostResolver resolver, long staggerMillis) {
+        this.delegate = delegate;
+        this.resolver = resolver;
+        this.stagger = staggerMillis;
+    }
+
+    @Override
+    public SessionRequest connect(SocketAddress remoteAddress,
+                                  SocketAddress localAddress,
+                                  Object attachment,
+                                  SessionRequestCallback callback) {
+        if (!(attachment instanceof HttpRoute) || !(remoteAddress instanceof InetSocketAddress)) {
+            return delegate.connect(remoteAddress, localAddress, attachment, callback);
+        }
+        HttpRoute route = (HttpRoute) attachment;
+        HttpHost host = route.getProxyHost() != null ? route.getProxyHost() : route.getTargetHost();
+        List<InetAddress> addresses;
+        try {
+            InetAddress[] resolved = host.getAddress() != null
+                    ? new InetAddress[]{host.getAddress()}
+                    : resolver.resolve(host.getHostName());
+            addresses = RacingConnectionOperator.order(resolved, winners.get(host.getHostName()));
+        } catch (UnknownHostException e) {
+            return delegate.connect(remoteAddress, localAddress, attachment, callback);
+        }
+        if (addresses.size() < 2) {
+            return delegate.connect(remoteAddress, localAddress, attachment, callback);
+        }
+        Race race = new Race(host.getHostName(), addresses, ((InetSocketAddress) remoteAddress).getPort(),
+                localAddress, attachment, callback);
+        race.next();
+        return race;
+    }
+
+    @Override
+    public IOReactorStatus getStatus() {
+        return delegate.getStatus();
+    }
+
+    @Override
+    public void execute(IOEventDispatch eventDispatch) throws IOException {
+        delegate.execute(eventDispatch);
+    }
+
+    @Override
+    public void shutdown(long gracePeriod) throws IOException {
+        delegate.shutdown(gracePeriod);
+    }
+
+    @Override
+    public void shutdown() throws IOException {
+        delegate.shutdown();
+    }
+
+    private static synchronized ScheduledExecutorService scheduler() {
+        if (scheduler == null) {
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> {
+                Thread t = new Thread(r, "Unirest Connection Race");
+                t.setDaemon(true);
+                return t;
+            });
+            executor.setRemoveOnCancelPolicy(true);
+            scheduler = executor;
+        }
+        return scheduler;
+    }
+
+    /**
+     * The session request handed to the pool. Completes with the first attempt to connect
+     * and fails once every attempt has failed.
+     */
+    private class Race implements SessionRequest, SessionRequestCallback {
+        private final String hostName;
+        private final List<InetAddress> addresses;
+        private final int port;
+        private final SocketAddress local;
+        private final Object attachment;
+        private final SessionRequestCallback callback;
+        private final List<SessionRequest> attempts = new CopyOnWriteArrayList<>();
+        private volatile int connectTimeout;
+        private ScheduledFuture<?> timer;
+        private int failed;
+        private SessionRequest winner;
+        private IOException exception;
+        private boolean completed;
+
+        Race(String hostName, List<InetAddress> addresses, int port, SocketAddress local,
+             Object attachment, SessionRequestCallback callback) {
+            this.hostName = hostName;
+            this.addresses = addresses;
+            this.port = port;
+            this.local = local;
+            this.attachment = attachment;
+            this.callback = callback;
+        }
+
+        private synchronized void next() {
+            if (completed || attempts.size() >= addresses.size()) {
+                return;
+            }
+            if (timer != null) {
+                timer.cancel(false);
+            }
+            SessionRequest attempt = delegate.connect(new InetSocketAddress(addresses.get(attempts.size()), port),
+                    local, attachment, this);
+            attempt.setConnectTimeout(connectTimeout);
+            attempts.add(attempt);
+            if (attempts.size() < addresses.size()) {
+                timer = scheduler().schedule(this::next, stagger, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        @Override
+        public void completed(SessionRequest attempt) {
+            synchronized (this) {
+                if (completed) {
+                    IOSession session = attempt.getSession();
+                    if (session != null) {
+                        session.close();
+                    }
+                    return;
+                }
+                completed = true;
+                winner = attempt;
+                if (timer != null) {
+                    timer.cancel(false);
+                }
+                attempts.stream().filter(a -> a != attempt).forEach(SessionRequest::cancel);
+                winners.put(hostName, ((InetSocketAddress) attempt.getRemoteAddress()).getAddress());
+                notifyAll();
+            }
+            if (callback != null) {
+                callback.completed(this);
+            }
+        }
+
+        @Override
+        public void failed(SessionRequest attempt) {
+            lost(attempt, attempt.getException(), false);
+        }
+
+        @Override
+        public void timeout(SessionRequest attempt) {
+            lost(attempt, null, true);
+        }
+
+        @Override
+        public void cancelled(SessionRequest attempt) {
+            // only the losers and the race itself are ever cancelled
+        }
+
+        private void lost(SessionRequest attempt, IOException e, boolean timedOut) {
+            synchronized (this) {
+                if (completed) {
+                    return;
+                }
+                exception = e;
+                if (++failed < addresses.size()) {
+                    if (failed == attempts.size()) {
+                        next();
+                    }
+                    return;
+                }
+                completed = true;
+                winner = attempt;
+                notifyAll();
+            }
+            if (callback != null) {
+                if (timedOut) {
+                    callback.timeout(this);
+                } else {
+                    callback.failed(this);
+                }
+            }
+        }
+
+        @Override
+        public SocketAddress getRemoteAddress() {
+            SessionRequest w = winner;
+            return w != null ? w.getRemoteAddress() : new InetSocketAddress(addresses.get(0), port);
+        }
+
+        @Override
+        public SocketAddress getLocalAddress() {
+            return local;
+        }
+
+        @Override
+        public Object getAttachment() {
+            return attachment;
+        }
+
+        @Override
+        public synchronized boolean isCompleted() {
+            return completed;
+        }
+
+        @Override
+        public synchronized IOSession getSession() {
+            return winner != null ? winner.getSession() : null;
+        }
+
+        @Override
+        public synchronized IOException getException() {
+            return exception;
+        }
+
+        @Override
+        public synchronized void waitFor() throws InterruptedException {
+            while (!completed) {
+                wait();
+            }
+        }
+
+        @Override
+        public void setConnectTimeout(int timeout) {
+            this.connectTimeout = timeout;
+            attempts.forEach(a -> a.setConnectTimeout(timeout));
+        }
+
+        @Override
+        public int getConnectTimeout() {
+            return connectTimeout;
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (this) {
+                if (completed) {
+                    return;
+                }
+                completed = true;
+                if (timer != null) {
+                    timer.cancel(false);
+                }
+                notifyAll();
+            }
+            attempts.forEach(SessionRequest::cancel);
+            if (callback != null) {
+                callback.cancelled(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,266 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of unirest-java are held by Kong Inc (c) 2013.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package kong.unirest.apache;
+
+import kong.unirest.HostResolver;
+import org.apache.http.HttpHost;
+import org.apache.http.config.Lookup;
+import org.apache.http.config.SocketConfig;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.HttpClientConnectionOperator;
+import org.apache.http.conn.HttpHostConnectException;
+import org.apache.http.conn.ManagedHttpClientConnection;
+import org.apache.http.conn.UnsupportedSchemeException;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.impl.conn.DefaultHttpClientConnectionOperator;
+import org.apache.http.impl.conn.DefaultSchemePortResolver;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Opens connections for the synchronous client by racing the addresses of a host (RFC 8305 style).
+ * The first address is tried right away and the next one is started whenever the stagger passes
+ * or an attempt fails, so a blackholed address only delays the connection by the stagger rather
+ * than by the whole connect timeout. The first socket to connect wins and the others are closed.
+ * The winning address is tried first for the next connection to the same host.
+ */
+class RacingConnectionOperator implements HttpClientConnectionOperator {
+    /**
+     * The context attribute holding the InetSocketAddress which won the race.
+     */
+    static final String CONNECTED_ADDRESS = "kong.unirest.connected-address";
+    private static ExecutorService executor;
+
+    private final Lookup<ConnectionSocketFactory> registry;
+    private final HostResolver resolver;
+    private final long stagger;
+    private final HttpClientConnectionOperator upgrader;
+    private final Map<String, InetAddress> winners = new ConcurrentHashMap<>();
+
+    RacingConnectionOperator(Lookup<ConnectionSocketFactory> registry, HostResolver resolver, long staggerMillis) {
+        this.registry = registry;
+        this.resolver = resolver;
+        this.stagger = staggerMillis;
+        this.upgrader = new DefaultHttpClientConnectionOperator(registry, null, resolver::resolve);
+    }
+
+    @Override
+    public void connect(ManagedHttpClientConnection conn,
+                        HttpHost host,
+                        InetSocketAddress localAddress,
+                        int connectTimeout,
+                        SocketConfig socketConfig,
+                        HttpContext context) throws IOException {
+        ConnectionSocketFactory factory = registry.lookup(host.getSchemeName());
+        if (factory == null) {
+            throw new UnsupportedSchemeException(host.getSchemeName() + " protocol is not supported");
+        }
+        InetAddress[] resolved = host.getAddress() != null
+                ? new InetAddress[]{host.getAddress()}
+                : resolver.resolve(host.getHostName());
+        int port = DefaultSchemePortResolver.INSTANCE.resolve(host);
+        List<InetAddress> addresses = order(resolved, winners.get(host.getHostName()));
+
+        Attempt winner = race(addresses, a -> new Attempt(factory, host, new InetSocketAddress(a, port),
+                localAddress, connectTimeout, socketConfig, context));
+        conn.bind(winner.socket);
+        winners.put(host.getHostName(), winner.remote.getAddress());
+        context.setAttribute(CONNECTED_ADDRESS, winner.remote);
+    }
+
+    @Override
+    public void upgrade(ManagedHttpClientConnection conn, HttpHost host, HttpContext context) throws IOException {
+        upgrader.upgrade(conn, host, context);
+    }
+
+    private Attempt race(List<InetAddress> addresses, Function<InetAddress, Attempt> attempts) throws IOException {
+        if (addresses.size() == 1) {
+            return attempts.apply(addresses.get(0)).call();
+        }
+        ExecutorCompletionService<Attempt> race = new ExecutorCompletionService<>(executor());
+        List<Attempt> started = new ArrayList<>();
+        int failed = 0;
+        try {
+            started.add(submit(race, attempts.apply(addresses.get(0))));
+            while (true) {
+                boolean more = started.size() < addresses.size();
+                Future<Attempt> done = more ? race.poll(stagger, TimeUnit.MILLISECONDS) : race.take();
+                if (done == null) {
+                    started.add(submit(race, attempts.apply(addresses.get(started.size()))));
+                    continue;
+                }
+                try {
+                    Attempt winner = done.get();
+                    started.stream().filter(a -> a != winner).forEach(Attempt::abandon);
+                    return winner;
+                } catch (ExecutionException e) {
+                    if (++failed == addresses.size()) {
+                        throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+                    }
+                    if (more) {
+                        started.add(submit(race, attempts.apply(addresses.get(started.size()))));
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            started.forEach(Attempt::abandon);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while connecting");
+        }
+    }
+
+    private static Attempt submit(ExecutorCompletionService<Attempt> race, Attempt attempt) {
+        race.submit(attempt);
+        return attempt;
+    }
+
+    /**
+     * Sort the addresses the way RFC 8305 suggests: the family of the first address first,
+     * then alternating between families, with the address which won last time in front.
+     */
+    static List<InetAddress> order(InetAddress[] addresses, InetAddress preferred) {
+        List<InetAddress> first = new ArrayList<>();
+        List<InetAddress> second = new ArrayList<>();
+        boolean firstIsV6 = addresses[0] instanceof Inet6Address;
+        for (InetAddress address : addresses) {
+            if (address.equals(preferred)) {
+                continue;
+            }
+            ((address instanceof Inet6Address) == firstIsV6 ? first : second).add(address);
+        }
+        List<InetAddress> ordered = new ArrayList<>(addresses.length);
+        if (preferred != null && Arrays.asList(addresses).contains(preferred)) {
+            ordered.add(preferred);
+        }
+        for (int i = 0; i < Math.max(first.size(), second.size()); i++) {
+            if (i < first.size()) {
+                ordered.add(first.get(i));
+            }
+            if (i < second.size()) {
+                ordered.add(second.get(i));
+            }
+        }
+        return ordered;
+    }
+
+    private static synchronized ExecutorService executor() {
+        if (executor == null) {
+            executor = Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "Unirest Connection Race");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return executor;
+    }
+
+    private static class Attempt implements Callable<Attempt> {
+        private final ConnectionSocketFactory factory;
+        private final HttpHost host;
+        private final InetSocketAddress remote;
+        private final InetSocketAddress local;
+        private final int connectTimeout;
+        private final SocketConfig config;
+        private final HttpContext context;
+        private volatile Socket socket;
+        private volatile boolean abandoned;
+
+        Attempt(ConnectionSocketFactory factory, HttpHost host, InetSocketAddress remote, InetSocketAddress local,
+                int connectTimeout, SocketConfig config, HttpContext context) {
+            this.factory = factory;
+            this.host = host;
+            this.remote = remote;
+            this.local = local;
+            this.connectTimeout = connectTimeout;
+            this.config = config;
+            this.context = context;
+        }
+
+        @Override
+        public Attempt call() throws IOException {
+            Socket sock = factory.createSocket(context);
+            socket = sock;
+            sock.setSoTimeout(config.getSoTimeout());
+            sock.setReuseAddress(config.isSoReuseAddress());
+            sock.setTcpNoDelay(config.isTcpNoDelay());
+            sock.setKeepAlive(config.isSoKeepAlive());
+            if (config.getRcvBufSize() > 0) {
+                sock.setReceiveBufferSize(config.getRcvBufSize());
+            }
+            if (config.getSndBufSize() > 0) {
+                sock.setSendBufferSize(config.getSndBufSize());
+            }
+            if (config.getSoLinger() >= 0) {
+                sock.setSoLinger(true, config.getSoLinger());
+            }
+            try {
+                socket = factory.connectSocket(connectTimeout, sock, host, remote, local, context);
+            } catch (ConnectTimeoutException e) {
+                sock.close();
+                throw e;
+            } catch (IOException e) {
+                sock.close();
+                throw new HttpHostConnectException(e, host, remote.getAddress());
+            }
+            if (abandoned) {
+                socket.close();
+                throw new InterruptedIOException("Lost the connection race");
+            }
+            return this;
+        }
+
+        void abandon() {
+            abandoned = true;
+            Socket sock = socket;
+            if (sock != null) {
+                try {
+                    sock.close();
+                } catch (IOException ignored) {
+                    // already lost
+                }
+            }
+        }
+    }
+}
@@ -27,8 +27,18 @@ package kong.unirest.apache;
 
 import kong.unirest.Config;
 import kong.unirest.Proxy;
+import kong.unirest.SocketOptions;
+import kong.unirest.UnirestConfigException;
 import org.apache.http.HttpHost;
 import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.SocketConfig;
+import org.apache.http.conn.UnsupportedSchemeException;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.DefaultSchemePortResolver;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 class RequestOptions {
     static RequestConfig toRequestConfig(Config config) {
@@ -43,6 +53,95 @@ class RequestOptions {
                 .build();
     }
 
+    static SocketConfig toSocketConfig(SocketOptions options) {
+        return toSocketConfig(options, null);
+    }
+
+    /**
+     * The options of a route laid over the global ones, so a route only overrides what it sets itself.
+     */
+    static SocketConfig toSocketConfig(SocketOptions global, SocketOptions route) {
+        SocketConfig.Builder builder = SocketConfig.custom();
+        apply(builder, global);
+        apply(builder, route);
+        return builder.build();
+    }
+
+    private static void apply(SocketConfig.Builder builder, SocketOptions options) {
+        if (options != null) {
+            if (options.getTcpNoDelay() != null) {
+                builder.setTcpNoDelay(options.getTcpNoDelay());
+            }
+            if (options.getKeepAlive() != null) {
+                builder.setSoKeepAlive(options.getKeepAlive());
+            }
+            if (options.getReceiveBufferSize() != null) {
+                builder.setRcvBufSize(options.getReceiveBufferSize());
+            }
+            if (options.getSendBufferSize() != null) {
+                builder.setSndBufSize(options.getSendBufferSize());
+            }
+            if (options.getLinger() != null) {
+                builder.setSoLinger(options.getLinger());
+            }
+        }
+    }
+
+    static IOReactorConfig toReactorConfig(Config config) {
+        IOReactorConfig.Builder builder = IOReactorConfig.custom()
+                .setSelectInterval(config.getSelectInterval());
+        if (config.getIoThreadCount() > 0) {
+            builder.setIoThreadCount(config.getIoThreadCount());
+        }
+        SocketConfig socket = toSocketConfig(config.getSocketOptions());
+        return builder.setTcpNoDelay(socket.isTcpNoDelay())
+                .setSoKeepAlive(socket.isSoKeepAlive())
+                .setRcvBufSize(socket.getRcvBufSize())
+                .setSndBufSize(socket.getSndBufSize())
+                .setSoLinger(socket.getSoLinger())
+                .build();
+    }
+
+    /**
+     * Turns an origin like https://api.example.com into the host Apache keys its route settings by,
+     * which always carries an explicit port.
+     */
+    static HttpHost toRouteHost(String origin) {
+        return toRouteHost(HttpHost.create(origin));
+    }
+
+    static HttpHost toRouteHost(HttpHost host) {
+        if (host.getPort() > 0) {
+            return new HttpHost(host.getHostName(), host.getPort(), host.getSchemeName());
+        }
+        try {
+            int port = DefaultSchemePortResolver.INSTANCE.resolve(host);
+            return new HttpHost(host.getHostName(), port, host.getSchemeName());
+        } catch (UnsupportedSchemeException e) {
+            throw new UnirestConfigException(e);
+        }
+    }
+
+    static HttpRoute toRoute(HttpHost host) {
+        return new HttpRoute(host, null, "https".equalsIgnoreCase(host.getSchemeName()));
+    }
+
+    /**
+     * The per route limits of the config which the Apache pools can apply: those set for an exact origin.
+     * Behind a proxy the routes are not known up front, so there are none.
+     */
+    static Map<HttpRoute, Integer> routeLimits(Config config) {
+        Map<HttpRoute, Integer> limits = new LinkedHashMap<>();
+        if (config.getProxy() == null) {
+            config.getRouteConcurrency().forEach((route, max) -> {
+                if (!RoutePattern.isPattern(route)) {
+                    limits.putIfAbsent(toRoute(toRouteHost(route)), max);
+                }
+            });
+        }
+        return limits;
+    }
+
     public static HttpHost toApacheProxy(Proxy proxy){
         if(proxy == null){
             return null;
@@ -30,6 +30,7 @@ import org.apache.http.Header;
 import org.apache.http.HttpEntity;
 import org.apache.http.client.methods.*;
 import org.apache.http.message.BasicHeader;
+import org.apache.http.nio.entity.HttpAsyncContentProducer;
 import org.apache.http.nio.entity.NByteArrayEntity;
 
 import java.io.ByteArrayOutputStream;
@@ -104,7 +105,9 @@ class RequestPrep {
         if (request.getBody().isPresent()) {
             ApacheBodyMapper mapper = new ApacheBodyMapper(request);
             HttpEntity entity = mapper.apply();
-            if (async) {
+            if (async && entity instanceof HttpAsyncContentProducer) {
+                ((HttpEntityEnclosingRequestBase) reqObj).setEntity(entity);
+            } else if (async) {
                 if (reqObj.getHeaders(CONTENT_TYPE) == null || reqObj.getHeaders(CONTENT_TYPE).length == 0) {
                     reqObj.setHeader(entity.getContentType());
                 }
@@ -0,0 +1,82 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of unirest-java are held by Kong Inc (c) 2013.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package kong.unirest.apache;
+
+import org.apache.http.HttpHost;
+
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Matches the target of a route against an origin from the config.
+ * An origin is either exact (https://api.example.com, with the scheme's default port implied)
+ * or a pattern where * stands for any part of the host name (https://*.example.com or *.example.com for any scheme).
+ */
+class RoutePattern implements Predicate<HttpHost> {
+    private final String scheme;
+    private final Pattern host;
+    private final int port;
+
+    private RoutePattern(String scheme, Pattern host, int port) {
+        this.scheme = scheme;
+        this.host = host;
+        this.port = port;
+    }
+
+    static boolean isPattern(String origin) {
+        return origin.contains("*");
+    }
+
+    static Predicate<HttpHost> compile(String origin) {
+        if (!isPattern(origin)) {
+            HttpHost exact = RequestOptions.toRouteHost(origin);
+            return h -> exact.equals(RequestOptions.toRouteHost(h));
+        }
+        String rest = origin;
+        String scheme = null;
+        int split = rest.indexOf("://");
+        if (split >= 0) {
+            scheme = rest.substring(0, split).toLowerCase();
+            rest = rest.substring(split + 3);
+        }
+        int port = -1;
+        int colon = rest.lastIndexOf(':');
+        if (colon >= 0) {
+            port = Integer.parseInt(rest.substring(colon + 1));
+            rest = rest.substring(0, colon);
+        }
+        String regex = ("\\Q" + rest.toLowerCase() + "\\E").replace("*", "\\E[^/:]*\\Q");
+        return new RoutePattern(scheme, Pattern.compile(regex), port);
+    }
+
+    @Override
+    public boolean test(HttpHost target) {
+        HttpHost route = RequestOptions.toRouteHost(target);
+        return (scheme == null || scheme.equalsIgnoreCase(route.getSchemeName()))
+                && (port < 0 || port == route.getPort())
+                && host.matcher(route.getHostName().toLowerCase()).matches();
+    }
+}
@@ -26,28 +26,22 @@
 package kong.unirest.apache;
 
 import kong.unirest.Config;
-import kong.unirest.UnirestConfigException;
+import kong.unirest.TlsContext;
 import org.apache.http.config.Registry;
 import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.conn.HttpClientConnectionOperator;
 import org.apache.http.conn.socket.ConnectionSocketFactory;
 import org.apache.http.conn.socket.PlainConnectionSocketFactory;
-import org.apache.http.conn.ssl.DefaultHostnameVerifier;
-import org.apache.http.conn.ssl.NoopHostnameVerifier;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
-import org.apache.http.conn.ssl.TrustStrategy;
 import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.DefaultHttpClientConnectionOperator;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
-import org.apache.http.ssl.SSLContextBuilder;
-import org.apache.http.ssl.SSLContexts;
 
-import javax.net.ssl.HostnameVerifier;
-import javax.net.ssl.SSLContext;
-import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 
 class SecurityConfig {
     private final Config config;
-    private SSLContext sslContext;
     private SSLConnectionSocketFactory sslSocketFactory;
 
 
@@ -55,105 +49,58 @@ class SecurityConfig {
         this.config = config;
     }
 
-    public PoolingHttpClientConnectionManager createManager() {
-        PoolingHttpClientConnectionManager manager = new PoolingHttpClientConnectionManager(buildSocketFactory(),
-                null, null, null,
+    public HttpClientConnectionManager createManager() {
+        HttpClientConnectionOperator operator = newOperator(buildSocketFactory());
+        if (config.isStripedConnectionPool()) {
+            StripedConnectionManager manager = new StripedConnectionManager(operator, config.getTTL(), TimeUnit.MILLISECONDS);
+            manager.setMaxTotal(config.getMaxConnections());
+            manager.setDefaultMaxPerRoute(config.getMaxPerRoutes());
+            manager.setValidateAfterInactivity(config.getValidateAfterInactivity());
+            manager.setDefaultSocketConfig(RequestOptions.toSocketConfig(config.getSocketOptions()));
+            config.getRouteSocketOptions().forEach((origin, options) ->
+                    manager.setSocketConfig(RequestOptions.toRouteHost(origin), RequestOptions.toSocketConfig(config.getSocketOptions(), options)));
+            config.getRouteConcurrency().forEach(manager::setLimit);
+            config.getRouteReservations().forEach(manager::setReservation);
+            return manager;
+        }
+        PoolingHttpClientConnectionManager manager = new PoolingHttpClientConnectionManager(operator, null,
                 config.getTTL(), TimeUnit.MILLISECONDS);
 
         manager.setMaxTotal(config.getMaxConnections());
         manager.setDefaultMaxPerRoute(config.getMaxPerRoutes());
+        manager.setValidateAfterInactivity(config.getValidateAfterInactivity());
+        manager.setDefaultSocketConfig(RequestOptions.toSocketConfig(config.getSocketOptions()));
+        config.getRouteSocketOptions().forEach((origin, options) ->
+                manager.setSocketConfig(RequestOptions.toRouteHost(origin), RequestOptions.toSocketConfig(config.getSocketOptions(), options)));
+        RequestOptions.routeLimits(config).forEach(manager::setMaxPerRoute);
         return manager;
     }
 
-    private Registry<ConnectionSocketFactory> buildSocketFactory() {
-        try {
-            if (!config.isVerifySsl()) {
-                return createDisabledSSLContext();
-            } else if (config.getKeystore() != null || config.getSslContext() != null) {
-                return createCustomSslContext();
-            } else {
-                return createDefaultRegistry();
-            }
-        } catch (Exception e) {
-            throw new UnirestConfigException(e);
+    private HttpClientConnectionOperator newOperator(Registry<ConnectionSocketFactory> registry) {
+        if (config.isRaceConnections()) {
+            return new RacingConnectionOperator(registry, config.getHostResolver(), config.getRaceStagger());
         }
+        return new DefaultHttpClientConnectionOperator(registry, null, config.getHostResolver()::resolve);
     }
 
-    private Registry<ConnectionSocketFactory> createDefaultRegistry() {
-        return RegistryBuilder.<ConnectionSocketFactory>create()
-                .register("http", PlainConnectionSocketFactory.getSocketFactory())
-                .register("https", SSLConnectionSocketFactory.getSocketFactory())
-                .build();
-    }
-
-    private Registry<ConnectionSocketFactory> createCustomSslContext() {
-        SSLConnectionSocketFactory socketFactory = getSocketFactory();
-        return RegistryBuilder.<ConnectionSocketFactory>create()
-                .register("https", socketFactory)
-                .register("http", PlainConnectionSocketFactory.INSTANCE)
-                .build();
-    }
-
-    private Registry<ConnectionSocketFactory> createDisabledSSLContext() throws Exception {
+    private Registry<ConnectionSocketFactory> buildSocketFactory() {
         return RegistryBuilder.<ConnectionSocketFactory>create()
                 .register("http", PlainConnectionSocketFactory.INSTANCE)
-                .register("https", new SSLConnectionSocketFactory(new SSLContextBuilder()
-                        .loadTrustMaterial(null, (x509CertChain, authType) -> true)
-                        .build(),
-                        NoopHostnameVerifier.INSTANCE))
+                .register("https", getSocketFactory())
                 .build();
     }
 
     private SSLConnectionSocketFactory getSocketFactory() {
         if(sslSocketFactory == null) {
-            sslSocketFactory = new SSLConnectionSocketFactory(createSslContext(), config.getProtocols(), config.getCiphers(), getHostnameVerifier());
+            sslSocketFactory = new TlsSocketFactory(config.getTlsContext());
         }
         return sslSocketFactory;
     }
 
-    private HostnameVerifier getHostnameVerifier() {
-        if(config.getHostnameVerifier() != null){
-            return config.getHostnameVerifier();
-        }
-        return new DefaultHostnameVerifier();
-    }
-
-    private SSLContext createSslContext() {
-        if(sslContext == null) {
-            if(config.getSslContext() != null){
-                sslContext = config.getSslContext();
-            } else {
-                try {
-                    char[] pass = Optional.ofNullable(config.getKeyStorePassword())
-                            .map(String::toCharArray)
-                            .orElse(null);
-                    sslContext = SSLContexts.custom()
-                            .loadKeyMaterial(config.getKeystore(), pass)
-                            .build();
-                } catch (Exception e) {
-                    throw new UnirestConfigException(e);
-                }
-            }
-        }
-        return sslContext;
-    }
-
     public void configureSecurity(HttpClientBuilder cb) {
-        if(config.getKeystore() != null){
-            cb.setSSLContext(createSslContext());
-            cb.setSSLSocketFactory(getSocketFactory());
-        }
-        if (!config.isVerifySsl()) {
-            disableSsl(cb);
-        }
-    }
-
-    private void disableSsl(HttpClientBuilder cb) {
-        try {
-            cb.setSSLHostnameVerifier(NoopHostnameVerifier.INSTANCE);
-            cb.setSSLContext(new SSLContextBuilder().loadTrustMaterial(null, (TrustStrategy) (arg0, arg1) -> true).build());
-        } catch (Exception e) {
-            throw new UnirestConfigException(e);
-        }
+        TlsContext tls = config.getTlsContext();
+        cb.setSSLContext(tls.getSslContext());
+        cb.setSSLHostnameVerifier(tls.getHostnameVerifier());
+        cb.setSSLSocketFactory(getSocketFactory());
     }
 }
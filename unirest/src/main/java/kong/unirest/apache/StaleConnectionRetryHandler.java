@@ -0,0 +1,68 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of unirest-java are held by Kong Inc (c) 2013.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package kong.unirest.apache;
+
+import org.apache.http.ConnectionClosedException;
+import org.apache.http.NoHttpResponseException;
+import org.apache.http.impl.client.DefaultHttpRequestRetryHandler;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.IOException;
+import java.net.SocketException;
+
+/**
+ * The default Apache retry behavior (replaying requests which were not sent or carry no body)
+ * which also reports stale connection failures to the adaptive validation of the pool.
+ */
+class StaleConnectionRetryHandler extends DefaultHttpRequestRetryHandler {
+    private final AdaptiveValidation validation;
+
+    StaleConnectionRetryHandler(AdaptiveValidation validation) {
+        this.validation = validation;
+    }
+
+    @Override
+    public boolean retryRequest(IOException exception, int executionCount, HttpContext context) {
+        if (validation != null && isStaleConnection(exception)) {
+            validation.onStale();
+        }
+        return super.retryRequest(exception, executionCount, context);
+    }
+
+    /**
+     * @return if the failure looks like a pooled connection which the server had already closed
+     */
+    static boolean isStaleConnection(Throwable e) {
+        if (e instanceof NoHttpResponseException || e instanceof ConnectionClosedException) {
+            return true;
+        }
+        if (e instanceof SocketException && e.getMessage() != null) {
+            String message = e.getMessage().toLowerCase();
+            return message.contains("connection reset") || message.contains("broken pipe");
+        }
+        return false;
+    }
+}
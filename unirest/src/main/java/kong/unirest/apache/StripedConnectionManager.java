@@ -0,0 +1,924 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of unirest-java are held by Kong Inc (c) 2013.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package kong.unirest.apache;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpConnectionMetrics;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpException;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.config.ConnectionConfig;
+import org.apache.http.config.SocketConfig;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.conn.HttpClientConnectionOperator;
+import org.apache.http.conn.HttpConnectionFactory;
+import org.apache.http.conn.ManagedHttpClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.ConnectionShutdownException;
+import org.apache.http.impl.conn.ManagedHttpClientConnectionFactory;
+import org.apache.http.pool.ConnPoolControl;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+
+import kong.unirest.Priority;
+import kong.unirest.UnirestConfigException;
+
+import javax.net.ssl.SSLSession;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * A connection pool for the synchronous client which does not share one lock between all routes.
+ * Every route keeps its idle connections on a lock free stack, so leasing and releasing an idle connection
+ * is a single compare-and-set, and the most recently used (warmest) connection is always handed out first.
+ * Capacity is counted with atomic counters per route and in total. Only a request which has to wait for
+ * a saturated route takes that route's lock, and a released connection is handed straight to the
+ * next waiting request.
+ * <p>
+ * Waiting requests are served by {@link Priority}, and within a priority they take turns by tenant.
+ * Routes can have their own limit, and a reservation keeps part of the total for the routes matching it.
+ * <p>
+ * Limits, time to live, keep-alive expiry and validate-after-inactivity behave as they do
+ * in the PoolingHttpClientConnectionManager.
+ */
+class StripedConnectionManager implements HttpClientConnectionManager, ConnPoolControl<HttpRoute> {
+    private static final ThreadLocal<Waiter> ORDER = new ThreadLocal<>();
+    private final ThreadLocal<List<RoutePool>> deferredWakes = new ThreadLocal<>();
+    private final HttpClientConnectionOperator operator;
+    private final HttpConnectionFactory<HttpRoute, ManagedHttpClientConnection> factory = ManagedHttpClientConnectionFactory.INSTANCE;
+    private final long ttl;
+    private final Map<HttpRoute, RoutePool> routes = new ConcurrentHashMap<>();
+    private final Map<HttpRoute, Integer> maxPerRoute = new ConcurrentHashMap<>();
+    private final Map<HttpHost, SocketConfig> socketConfigs = new ConcurrentHashMap<>();
+    private final List<Limit> limits = new ArrayList<>();
+    private final List<Reservation> reservations = new ArrayList<>();
+    private final AtomicInteger shared = new AtomicInteger();
+    private volatile int reserved;
+    private volatile int maxTotal = 20;
+    private volatile int defaultMaxPerRoute = 2;
+    private volatile int validateAfterInactivity = 2000;
+    private volatile SocketConfig defaultSocketConfig = SocketConfig.DEFAULT;
+    private volatile boolean shutdown;
+
+    StripedConnectionManager(HttpClientConnectionOperator operator, long timeToLive, TimeUnit unit) {
+        this.operator = operator;
+        this.ttl = timeToLive > 0 ? unit.toMillis(timeToLive) : Long.MAX_VALUE;
+    }
+
+    /**
+     * Set the priority and tenant of the connection requests made by this thread from now on.
+     */
+    static void order(Priority priority, String tenant) {
+        ORDER.set(new Waiter(priority, tenant));
+    }
+
+    static void clearOrder() {
+        ORDER.remove();
+    }
+
+    @Override
+    public ConnectionRequest requestConnection(HttpRoute route, Object state) {
+        RoutePool pool = pool(route);
+        Waiter order = ORDER.get();
+        Priority priority = order == null ? Priority.NORMAL : order.priority;
+        String tenant = order == null ? null : order.tenant;
+        return new ConnectionRequest() {
+            private volatile boolean cancelled;
+
+            @Override
+            public HttpClientConnection get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
+                if (shutdown) {
+                    throw new ExecutionException(new IllegalStateException("Connection pool shut down"));
+                }
+                Entry entry = pool.lease(new Waiter(priority, tenant), timeout > 0 ? unit.toMillis(timeout) : 0, () -> cancelled);
+                return new PooledConnection(entry);
+            }
+
+            @Override
+            public boolean cancel() {
+                cancelled = true;
+                pool.wakeAll();
+                return true;
+            }
+        };
+    }
+
+    @Override
+    public void releaseConnection(HttpClientConnection conn, Object state, long keepAlive, TimeUnit unit) {
+        Entry entry = ((PooledConnection) conn).detach();
+        if (entry == null) {
+            return;
+        }
+        RoutePool pool = pool(entry.route);
+        if (shutdown || !entry.connection.isOpen() || !entry.routeComplete) {
+            pool.discard(entry);
+            return;
+        }
+        long now = System.currentTimeMillis();
+        entry.connection.setSocketTimeout(0);
+        entry.updated = now;
+        long keepAliveDeadline = keepAlive > 0 ? now + unit.toMillis(keepAlive) : Long.MAX_VALUE;
+        entry.expiry = Math.min(entry.deadline, keepAliveDeadline);
+        pool.release(entry);
+    }
+
+    @Override
+    public void connect(HttpClientConnection conn, HttpRoute route, int connectTimeout, HttpContext context) throws IOException {
+        ManagedHttpClientConnection managed = ((PooledConnection) conn).getValidEntry().connection;
+        HttpHost host = route.getProxyHost() != null ? route.getProxyHost() : route.getTargetHost();
+        SocketConfig socketConfig = socketConfigs.getOrDefault(host, defaultSocketConfig);
+        operator.connect(managed, host, route.getLocalSocketAddress(), connectTimeout, socketConfig, context);
+    }
+
+    @Override
+    public void upgrade(HttpClientConnection conn, HttpRoute route, HttpContext context) throws IOException {
+        ManagedHttpClientConnection managed = ((PooledConnection) conn).getValidEntry().connection;
+        operator.upgrade(managed, route.getTargetHost(), context);
+    }
+
+    @Override
+    public void routeComplete(HttpClientConnection conn, HttpRoute route, HttpContext context) {
+        ((PooledConnection) conn).getValidEntry().routeComplete = true;
+    }
+
+    @Override
+    public void closeIdleConnections(long idleTime, TimeUnit unit) {
+        long cutoff = System.currentTimeMillis() - Math.max(0, unit.toMillis(idleTime));
+        routes.values().forEach(p -> p.closeIf(e -> e.updated <= cutoff));
+    }
+
+    @Override
+    public void closeExpiredConnections() {
+        long now = System.currentTimeMillis();
+        routes.values().forEach(p -> p.closeIf(e -> e.isExpired(now)));
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+        routes.values().forEach(p -> {
+            p.closeIf(e -> true);
+            p.wakeAll();
+        });
+    }
+
+    void setValidateAfterInactivity(int millis) {
+        this.validateAfterInactivity = millis;
+    }
+
+    void setDefaultSocketConfig(SocketConfig config) {
+        this.defaultSocketConfig = config != null ? config : SocketConfig.DEFAULT;
+    }
+
+    void setSocketConfig(HttpHost host, SocketConfig config) {
+        socketConfigs.put(host, config);
+    }
+
+    /**
+     * Limit every route matching the origin or pattern, unless an earlier limit matches it.
+     */
+    void setLimit(String route, int max) {
+        limits.add(new Limit(RoutePattern.compile(route), max));
+    }
+
+    /**
+     * Keep connections out of the shared part of the total for the routes matching the origin or pattern.
+     */
+    void setReservation(String route, int connections) {
+        checkReservations(maxTotal, reserved + connections);
+        reservations.add(new Reservation(RoutePattern.compile(route), connections));
+        reserved += connections;
+    }
+
+    /**
+     * Routes without a reservation could never open a connection if the reservations took the whole total
+     */
+    private static void checkReservations(int max, int reservedTotal) {
+        if (reservedTotal > 0 && reservedTotal >= max) {
+            throw new UnirestConfigException("The connection reservations (" + reservedTotal
+                    + ") must be less than the total connection limit (" + max + ")");
+        }
+    }
+
+    @Override
+    public void setMaxTotal(int max) {
+        checkReservations(max, reserved);
+        this.maxTotal = max;
+        routes.values().forEach(RoutePool::wakeAll);
+    }
+
+    @Override
+    public int getMaxTotal() {
+        return maxTotal;
+    }
+
+    @Override
+    public void setDefaultMaxPerRoute(int max) {
+        this.defaultMaxPerRoute = max;
+        routes.values().forEach(RoutePool::wakeAll);
+    }
+
+    @Override
+    public int getDefaultMaxPerRoute() {
+        return defaultMaxPerRoute;
+    }
+
+    @Override
+    public void setMaxPerRoute(HttpRoute route, int max) {
+        maxPerRoute.put(route, max);
+        RoutePool pool = routes.get(route);
+        if (pool != null) {
+            pool.wakeAll();
+        }
+    }
+
+    @Override
+    public int getMaxPerRoute(HttpRoute route) {
+        Integer max = maxPerRoute.get(route);
+        if (max != null) {
+            return max;
+        }
+        RoutePool pool = routes.get(route);
+        Limit limit = pool != null ? pool.limit : findLimit(route);
+        return limit != null ? limit.max : defaultMaxPerRoute;
+    }
+
+    private Limit findLimit(HttpRoute route) {
+        return limits.stream().filter(l -> l.matches.test(route.getTargetHost())).findFirst().orElse(null);
+    }
+
+    private Reservation findReservation(HttpRoute route) {
+        return reservations.stream().filter(r -> r.matches.test(route.getTargetHost())).findFirst().orElse(null);
+    }
+
+    @Override
+    public PoolStats getTotalStats() {
+        int leased = 0;
+        int pending = 0;
+        int available = 0;
+        for (RoutePool pool : routes.values()) {
+            int idle = pool.idle.size();
+            leased += pool.allocated.get() - idle;
+            pending += pool.waiting.get();
+            available += idle;
+        }
+        return new PoolStats(leased, pending, available, maxTotal);
+    }
+
+    @Override
+    public PoolStats getStats(HttpRoute route) {
+        RoutePool pool = routes.get(route);
+        if (pool == null) {
+            return new PoolStats(0, 0, 0, getMaxPerRoute(route));
+        }
+        int idle = pool.idle.size();
+        return new PoolStats(pool.allocated.get() - idle, pool.waiting.get(), idle, getMaxPerRoute(route));
+    }
+
+    private RoutePool pool(HttpRoute route) {
+        return routes.computeIfAbsent(route, RoutePool::new);
+    }
+
+    /**
+     * Give up an idle connection of another route to make room in the shared part of the total.
+     */
+    private boolean evictIdleElsewhere(RoutePool except) {
+        for (RoutePool pool : routes.values()) {
+            if (pool != except) {
+                Entry victim = pool.idle.peekLast();
+                if (victim != null && victim.reservation == null && pool.idle.removeLastOccurrence(victim)) {
+                    pool.discard(victim);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Wake a request waiting for the capacity a discarded connection freed, preferring the route it came from.
+     */
+    private void onCapacityFreed(RoutePool freed, Reservation reservation) {
+        if (freed.waiting.get() > 0) {
+            wake(freed);
+            return;
+        }
+        for (RoutePool pool : routes.values()) {
+            if (pool.waitsOnTotal() && (reservation == null || pool.reservation == reservation)) {
+                wake(pool);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Is a request of some other route waiting for room in the shared part of the total, rather than on its own limit
+     */
+    private boolean othersWaitOnTotal(RoutePool except) {
+        for (RoutePool pool : routes.values()) {
+            if (pool != except && pool.reservation == null && pool.waitsOnTotal()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Wake the first waiter of a route. A thread holding the lock of its own route only notes it down,
+     * and wakes it once it has let go of that lock, so no thread ever holds two route locks.
+     */
+    private void wake(RoutePool pool) {
+        List<RoutePool> deferred = deferredWakes.get();
+        if (deferred != null) {
+            deferred.add(pool);
+        } else {
+            pool.wakeFirst();
+        }
+    }
+
+    private static class Limit {
+        private final Predicate<HttpHost> matches;
+        private final int max;
+
+        Limit(Predicate<HttpHost> matches, int max) {
+            this.matches = matches;
+            this.max = max;
+        }
+    }
+
+    private static class Reservation {
+        private final Predicate<HttpHost> matches;
+        private final int connections;
+        private final AtomicInteger used = new AtomicInteger();
+
+        Reservation(Predicate<HttpHost> matches, int connections) {
+            this.matches = matches;
+            this.connections = connections;
+        }
+
+        boolean tryAcquire() {
+            while (true) {
+                int current = used.get();
+                if (current >= connections) {
+                    return false;
+                }
+                if (used.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+    }
+
+    private interface Cancelled {
+        boolean get();
+    }
+
+    private class RoutePool {
+        private final HttpRoute route;
+        private final ConcurrentLinkedDeque<Entry> idle = new ConcurrentLinkedDeque<>();
+        private final AtomicInteger allocated = new AtomicInteger();
+        private final AtomicInteger waiting = new AtomicInteger();
+        private final ReentrantLock lock = new ReentrantLock();
+        private final WaitQueue waiters = new WaitQueue();
+        private final Limit limit;
+        private final Reservation reservation;
+
+        RoutePool(HttpRoute route) {
+            this.route = route;
+            this.limit = findLimit(route);
+            this.reservation = findReservation(route);
+        }
+
+        Entry lease(Waiter waiter, long timeoutMillis, Cancelled cancelled) throws InterruptedException, ConnectionPoolTimeoutException {
+            Entry entry = tryLease();
+            if (entry != null) {
+                return entry;
+            }
+            long deadline = timeoutMillis > 0 ? System.currentTimeMillis() + timeoutMillis : Long.MAX_VALUE;
+            List<RoutePool> wakes = new ArrayList<>(1);
+            waiter.condition = lock.newCondition();
+            lock.lockInterruptibly();
+            waiting.incrementAndGet();
+            try {
+                while (true) {
+                    if (waiter.entry != null) {
+                        return waiter.entry;
+                    }
+                    if (shutdown || cancelled.get()) {
+                        waiters.remove(waiter);
+                        throw new InterruptedException("Connection request cancelled");
+                    }
+                    entry = tryLeaseLocked(wakes);
+                    if (entry != null) {
+                        waiters.remove(waiter);
+                        return entry;
+                    }
+                    if (!wakes.isEmpty()) {
+                        wakeUnlocked(wakes);
+                        continue;
+                    }
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        waiters.remove(waiter);
+                        throw new ConnectionPoolTimeoutException("Timeout waiting for connection from pool");
+                    }
+                    if (!waiter.queued) {
+                        waiters.add(waiter);
+                    }
+                    waiter.condition.await(remaining, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException | ConnectionPoolTimeoutException | RuntimeException e) {
+                if (waiter.entry != null) {
+                    // a connection was handed over just as we gave up, so put it back
+                    Entry handed = waiter.entry;
+                    waiter.entry = null;
+                    lock.unlock();
+                    try {
+                        release(handed);
+                    } finally {
+                        lock.lock();
+                    }
+                }
+                throw e;
+            } finally {
+                waiting.decrementAndGet();
+                lock.unlock();
+                wakes.forEach(RoutePool::wakeFirst);
+                wakes.clear();
+            }
+        }
+
+        /**
+         * Try to lease while holding this route's lock, keeping the wake-ups of other routes
+         * that evicting idle connections causes until the lock is let go of
+         */
+        private Entry tryLeaseLocked(List<RoutePool> wakes) {
+            deferredWakes.set(wakes);
+            try {
+                return tryLease();
+            } finally {
+                deferredWakes.remove();
+            }
+        }
+
+        private void wakeUnlocked(List<RoutePool> wakes) {
+            lock.unlock();
+            try {
+                wakes.forEach(RoutePool::wakeFirst);
+                wakes.clear();
+            } finally {
+                lock.lock();
+            }
+        }
+
+        boolean waitsOnTotal() {
+            return waiting.get() > 0 && allocated.get() < getMaxPerRoute(route);
+        }
+
+        /**
+         * The lock free fast path: the most recently released usable idle connection, or a new one if
+         * the limits allow it.
+         */
+        private Entry tryLease() {
+            long now = System.currentTimeMillis();
+            Entry entry;
+            while ((entry = idle.pollFirst()) != null) {
+                if (entry.isExpired(now) || !entry.connection.isOpen() || isStale(entry, now)) {
+                    discard(entry);
+                    continue;
+                }
+                return entry;
+            }
+            Slot slot = reserve();
+            if (slot == Slot.NONE && allocated.get() < getMaxPerRoute(route) && evictIdleElsewhere(this)) {
+                slot = reserve();
+            }
+            if (slot == Slot.NONE) {
+                return null;
+            }
+            return new Entry(route, factory.create(route, ConnectionConfig.DEFAULT),
+                    now + ttl < now ? Long.MAX_VALUE : now + ttl,
+                    slot == Slot.RESERVED ? reservation : null);
+        }
+
+        private boolean isStale(Entry entry, long now) {
+            int validate = validateAfterInactivity;
+            return validate > 0 && entry.updated + validate <= now && entry.connection.isStale();
+        }
+
+        /**
+         * Take room for a new connection under the route limit, from the route's reservation if it
+         * has any left and otherwise from the shared part of the total.
+         */
+        private Slot reserve() {
+            int max = getMaxPerRoute(route);
+            while (true) {
+                int current = allocated.get();
+                if (current >= max) {
+                    return Slot.NONE;
+                }
+                if (allocated.compareAndSet(current, current + 1)) {
+                    break;
+                }
+            }
+            if (reservation != null && reservation.tryAcquire()) {
+                return Slot.RESERVED;
+            }
+            while (true) {
+                int total = shared.get();
+                if (total >= maxTotal - reserved) {
+                    allocated.decrementAndGet();
+                    return Slot.NONE;
+                }
+                if (shared.compareAndSet(total, total + 1)) {
+                    return Slot.SHARED;
+                }
+            }
+        }
+
+        void release(Entry entry) {
+            if (waiting.get() > 0) {
+                lock.lock();
+                try {
+                    Waiter waiter = waiters.poll();
+                    if (waiter != null) {
+                        waiter.entry = entry;
+                        waiter.condition.signal();
+                        return;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+            if (waiting.get() == 0 && entry.reservation == null && othersWaitOnTotal(this)) {
+                // nobody here wants it, and another route is waiting on the total, so give up the room
+                discard(entry);
+                return;
+            }
+            idle.offerFirst(entry);
+            if (waiting.get() > 0) {
+                wakeFirst();
+            }
+        }
+
+        void discard(Entry entry) {
+            try {
+                entry.connection.shutdown();
+            } catch (IOException ignored) {
+                // closing anyway
+            }
+            allocated.decrementAndGet();
+            if (entry.reservation != null) {
+                entry.reservation.used.decrementAndGet();
+            } else {
+                shared.decrementAndGet();
+            }
+            onCapacityFreed(this, entry.reservation);
+        }
+
+        void closeIf(Predicate<Entry> condition) {
+            long now = System.currentTimeMillis();
+            for (Entry entry : idle) {
+                if ((condition.test(entry) || entry.isExpired(now)) && idle.removeFirstOccurrence(entry)) {
+                    discard(entry);
+                }
+            }
+        }
+
+        void wakeFirst() {
+            lock.lock();
+            try {
+                Waiter waiter = waiters.peek();
+                if (waiter != null) {
+                    waiter.condition.signal();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void wakeAll() {
+            lock.lock();
+            try {
+                waiters.forEach(w -> w.condition.signal());
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private enum Slot {
+        NONE, SHARED, RESERVED
+    }
+
+    private static class Waiter {
+        private final Priority priority;
+        private final String tenant;
+        private Condition condition;
+        private boolean queued;
+        private Entry entry;
+
+        Waiter(Priority priority, String tenant) {
+            this.priority = priority;
+            this.tenant = tenant;
+        }
+    }
+
+    /**
+     * The waiting requests of a route: highest priority first, and round robin between the tenants
+     * of a priority. Only used under the route's lock.
+     */
+    private static class WaitQueue {
+        private final List<Map<String, Deque<Waiter>>> levels = new ArrayList<>();
+
+        WaitQueue() {
+            for (Priority ignored : Priority.values()) {
+                levels.add(new LinkedHashMap<>());
+            }
+        }
+
+        void add(Waiter waiter) {
+            waiter.queued = true;
+            levels.get(waiter.priority.ordinal())
+                    .computeIfAbsent(waiter.tenant, t -> new ArrayDeque<>())
+                    .addLast(waiter);
+        }
+
+        void remove(Waiter waiter) {
+            if (!waiter.queued) {
+                return;
+            }
+            waiter.queued = false;
+            Map<String, Deque<Waiter>> level = levels.get(waiter.priority.ordinal());
+            Deque<Waiter> tenant = level.get(waiter.tenant);
+            if (tenant != null && tenant.remove(waiter) && tenant.isEmpty()) {
+                level.remove(waiter.tenant);
+            }
+        }
+
+        Waiter peek() {
+            for (Map<String, Deque<Waiter>> level : levels) {
+                if (!level.isEmpty()) {
+                    return level.values().iterator().next().peekFirst();
+                }
+            }
+            return null;
+        }
+
+        Waiter poll() {
+            for (Map<String, Deque<Waiter>> level : levels) {
+                if (!level.isEmpty()) {
+                    Map.Entry<String, Deque<Waiter>> next = level.entrySet().iterator().next();
+                    Waiter waiter = next.getValue().pollFirst();
+                    // the tenant goes to the back of the line
+                    level.remove(next.getKey());
+                    if (!next.getValue().isEmpty()) {
+                        level.put(next.getKey(), next.getValue());
+                    }
+                    waiter.queued = false;
+                    return waiter;
+                }
+            }
+            return null;
+        }
+
+        void forEach(Consumer<Waiter> action) {
+            levels.forEach(l -> l.values().forEach(d -> d.forEach(action)));
+        }
+    }
+
+    private static class Entry {
+        private final HttpRoute route;
+        private final ManagedHttpClientConnection connection;
+        private final long deadline;
+        private final Reservation reservation;
+        private volatile long updated;
+        private volatile long expiry;
+        private volatile boolean routeComplete;
+
+        Entry(HttpRoute route, ManagedHttpClientConnection connection, long deadline, Reservation reservation) {
+            this.route = route;
+            this.connection = connection;
+            this.deadline = deadline;
+            this.reservation = reservation;
+            this.expiry = deadline;
+            this.updated = System.currentTimeMillis();
+        }
+
+        boolean isExpired(long now) {
+            return now >= expiry;
+        }
+    }
+
+    /**
+     * What the client holds while it has a connection leased. Detached on release so that a late call
+     * through a stale reference can not touch a connection which is back in the pool.
+     */
+    private static class PooledConnection implements ManagedHttpClientConnection, HttpContext {
+        private volatile Entry entry;
+
+        PooledConnection(Entry entry) {
+            this.entry = entry;
+        }
+
+        Entry detach() {
+            Entry e = entry;
+            entry = null;
+            return e;
+        }
+
+        Entry getValidEntry() {
+            Entry e = entry;
+            if (e == null) {
+                throw new ConnectionShutdownException();
+            }
+            return e;
+        }
+
+        private ManagedHttpClientConnection conn() {
+            return getValidEntry().connection;
+        }
+
+        @Override
+        public void close() throws IOException {
+            Entry e = entry;
+            if (e != null) {
+                e.connection.close();
+            }
+        }
+
+        @Override
+        public void shutdown() throws IOException {
+            Entry e = entry;
+            if (e != null) {
+                e.connection.shutdown();
+            }
+        }
+
+        @Override
+        public boolean isOpen() {
+            Entry e = entry;
+            return e != null && e.connection.isOpen();
+        }
+
+        @Override
+        public boolean isStale() {
+            Entry e = entry;
+            return e == null || e.connection.isStale();
+        }
+
+        @Override
+        public void setSocketTimeout(int timeout) {
+            conn().setSocketTimeout(timeout);
+        }
+
+        @Override
+        public int getSocketTimeout() {
+            return conn().getSocketTimeout();
+        }
+
+        @Override
+        public HttpConnectionMetrics getMetrics() {
+            return conn().getMetrics();
+        }
+
+        @Override
+        public boolean isResponseAvailable(int timeout) throws IOException {
+            return conn().isResponseAvailable(timeout);
+        }
+
+        @Override
+        public void sendRequestHeader(HttpRequest request) throws HttpException, IOException {
+            conn().sendRequestHeader(request);
+        }
+
+        @Override
+        public void sendRequestEntity(HttpEntityEnclosingRequest request) throws HttpException, IOException {
+            conn().sendRequestEntity(request);
+        }
+
+        @Override
+        public HttpResponse receiveResponseHeader() throws HttpException, IOException {
+            return conn().receiveResponseHeader();
+        }
+
+        @Override
+        public void receiveResponseEntity(HttpResponse response) throws HttpException, IOException {
+            conn().receiveResponseEntity(response);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            conn().flush();
+        }
+
+        @Override
+        public InetAddress getLocalAddress() {
+            return conn().getLocalAddress();
+        }
+
+        @Override
+        public int getLocalPort() {
+            return conn().getLocalPort();
+        }
+
+        @Override
+        public InetAddress getRemoteAddress() {
+            return conn().getRemoteAddress();
+        }
+
+        @Override
+        public int getRemotePort() {
+            return conn().getRemotePort();
+        }
+
+        @Override
+        public String getId() {
+            return conn().getId();
+        }
+
+        @Override
+        public void bind(Socket socket) throws IOException {
+            conn().bind(socket);
+        }
+
+        @Override
+        public Socket getSocket() {
+            return conn().getSocket();
+        }
+
+        @Override
+        public SSLSession getSSLSession() {
+            return conn().getSSLSession();
+        }
+
+        @Override
+        public Object getAttribute(String id) {
+            ManagedHttpClientConnection c = conn();
+            return c instanceof HttpContext ? ((HttpContext) c).getAttribute(id) : null;
+        }
+
+        @Override
+        public void setAttribute(String id, Object obj) {
+            ManagedHttpClientConnection c = conn();
+            if (c instanceof HttpContext) {
+                ((HttpContext) c).setAttribute(id, obj);
+            }
+        }
+
+        @Override
+        public Object removeAttribute(String id) {
+            ManagedHttpClientConnection c = conn();
+            return c instanceof HttpContext ? ((HttpContext) c).removeAttribute(id) : null;
+        }
+
+        @Override
+        public String toString() {
+            Entry e = entry;
+            return e == null ? "detached" : e.connection.toString();
+        }
+    }
+}
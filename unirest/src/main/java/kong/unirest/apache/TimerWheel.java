@@ -0,0 +1,149 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of unirest-java are held by Kong Inc (c) 2013.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package kong.unirest.apache;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A hashed timer wheel for request deadlines. Almost every deadline is cancelled long before it fires,
+ * so scheduling and cancelling must be cheap: both are a queue offer or a flag, where a
+ * ScheduledThreadPoolExecutor pays a heap insert and removal under a lock for each.
+ * Deadlines fire within one tick (10ms) of being due, on the single wheel thread, so tasks must be short.
+ */
+class TimerWheel {
+    private static final long TICK = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final int WHEEL_SIZE = 512;
+    private static TimerWheel shared;
+    private final List<List<Timeout>> wheel = new ArrayList<>(WHEEL_SIZE);
+    private final Queue<Timeout> added = new ConcurrentLinkedQueue<>();
+    private final long start = System.nanoTime();
+    private long tick;
+
+    private TimerWheel() {
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel.add(new ArrayList<>());
+        }
+        Thread t = new Thread(this::run, "Unirest Deadline Timer");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    static synchronized TimerWheel shared() {
+        if (shared == null) {
+            shared = new TimerWheel();
+        }
+        return shared;
+    }
+
+    /**
+     * Run the task once the delay has passed, unless the returned timeout is cancelled first.
+     */
+    Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        Timeout timeout = new Timeout(task, System.nanoTime() - start + unit.toNanos(Math.max(0, delay)));
+        added.offer(timeout);
+        return timeout;
+    }
+
+    private void run() {
+        while (true) {
+            long due = (tick + 1) * TICK;
+            long sleep = due - (System.nanoTime() - start);
+            if (sleep > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleep);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                continue;
+            }
+            placeAdded();
+            expire(wheel.get((int) (tick % WHEEL_SIZE)), due);
+            tick++;
+        }
+    }
+
+    private void placeAdded() {
+        Timeout timeout;
+        while ((timeout = added.poll()) != null) {
+            if (timeout.cancelled.get()) {
+                continue;
+            }
+            long ticks = Math.max(tick, timeout.deadline / TICK);
+            timeout.rounds = (ticks - tick) / WHEEL_SIZE;
+            wheel.get((int) (ticks % WHEEL_SIZE)).add(timeout);
+        }
+    }
+
+    private void expire(List<Timeout> bucket, long now) {
+        Iterator<Timeout> it = bucket.iterator();
+        while (it.hasNext()) {
+            Timeout timeout = it.next();
+            if (timeout.cancelled.get()) {
+                it.remove();
+            } else if (timeout.rounds <= 0 && timeout.deadline <= now) {
+                it.remove();
+                timeout.fire();
+            } else {
+                timeout.rounds--;
+            }
+        }
+    }
+
+    static class Timeout {
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private long rounds;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * @return true if this call stopped the task from running
+         */
+        boolean cancel() {
+            return cancelled.compareAndSet(false, true);
+        }
+
+        private void fire() {
+            if (cancelled.compareAndSet(false, true)) {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    // a failing task must not stop the wheel
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of unirest-java are held by Kong Inc (c) 2013.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package kong.unirest.apache;
+
+import kong.unirest.TlsContext;
+import org.apache.http.HttpHost;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
+import org.apache.http.nio.reactor.IOSession;
+import org.apache.http.nio.reactor.ssl.SSLIOSession;
+
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLSession;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Opens the TLS connections of the asynchronous client from the shared TlsContext
+ * and counts their handshakes. A future left on the session under HANDSHAKE_DONE
+ * is completed once the handshake has been verified, or failed if the verification fails.
+ */
+class TlsSessionStrategy extends SSLIOSessionStrategy {
+    static final String HANDSHAKE_START = "kong.unirest.handshake-start";
+    static final String HANDSHAKE_DONE = "kong.unirest.handshake-done";
+    private final TlsContext tls;
+
+    TlsSessionStrategy(TlsContext tls) {
+        super(tls.getSslContext(), tls.getProtocols(), tls.getCiphers(), tls.getHostnameVerifier());
+        this.tls = tls;
+    }
+
+    @Override
+    public SSLIOSession upgrade(HttpHost host, IOSession iosession) throws IOException {
+        iosession.setAttribute(HANDSHAKE_START, System.currentTimeMillis());
+        return super.upgrade(host, iosession);
+    }
+
+    @Override
+    protected void verifySession(HttpHost host, IOSession iosession, SSLSession sslsession) throws SSLException {
+        Object done = iosession.removeAttribute(HANDSHAKE_DONE);
+        try {
+            super.verifySession(host, iosession, sslsession);
+        } catch (SSLException | RuntimeException e) {
+            if (done instanceof CompletableFuture) {
+                ((CompletableFuture<?>) done).completeExceptionally(e);
+            }
+            throw e;
+        }
+        Object start = iosession.getAttribute(HANDSHAKE_START);
+        if (start instanceof Long) {
+            tls.onHandshake(sslsession, (Long) start);
+        }
+        if (done instanceof CompletableFuture) {
+            ((CompletableFuture<?>) done).complete(null);
+        }
+        // removed last, so a session without a start has no handshake left to wait for
+        iosession.removeAttribute(HANDSHAKE_START);
+    }
+}
@@ -0,0 +1,211 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of unirest-java are held by Kong Inc (c) 2013.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package kong.unirest.apache;
+
+import kong.unirest.Config;
+import kong.unirest.UnirestConfigException;
+import kong.unirest.UnirestException;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.nio.protocol.HttpAsyncRequestExecutor;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * The connection level resources of the clients: the IO reactor, both connection pools, the host resolver
+ * and the TLS context, which many configs can share by attaching to it with {@link Config#transport(Transport)}.
+ * Every config keeps its own request settings (headers, auth, base url, timeouts, interceptors...),
+ * while threads and idle sockets scale with the hosts called rather than with the number of configs.
+ * <p>
+ * The transport is built from the connection settings of a config of its own (pool sizes, ssl, socket options,
+ * resolver, keep-alive and eviction). Those settings on the configs attached to it are not used.
+ * <p>
+ * The resources are reference counted: every client built on the transport holds a reference, and so does its
+ * creator until it calls {@link #close()}. They are released when the last reference goes.
+ */
+public class Transport implements AutoCloseable {
+    private final Config settings;
+    private final HttpClientConnectionManager syncManager;
+    private final PoolingNHttpClientConnectionManager asyncManager;
+    private final AdaptiveValidation validation;
+    private final IdleConnectionEvictor.Registration syncEviction;
+    private final IdleConnectionEvictor.Registration asyncEviction;
+    private final ConnectionWarmer syncWarmer;
+    private final ConnectionWarmer asyncWarmer;
+    private final Thread reactorThread;
+    private final AtomicInteger references = new AtomicInteger(1);
+    private final AtomicBoolean creator = new AtomicBoolean();
+    private volatile boolean closed;
+    private volatile Exception reactorFailure;
+
+    /**
+     * Build a transport and start its IO reactor.
+     * @param settings a config holding the connection settings of the transport. It is not used to make requests.
+     */
+    public Transport(Config settings) {
+        this.settings = settings;
+        try {
+            syncManager = new SecurityConfig(settings).createManager();
+            asyncManager = ApacheAsyncConfig.createConnectionManager(settings);
+        } catch (Exception e) {
+            throw new UnirestConfigException(e);
+        }
+        validation = settings.isAdaptiveValidation() && settings.getValidateAfterInactivity() > 0
+                ? new AdaptiveValidation(syncManager, settings.getValidateAfterInactivity())
+                : null;
+        reactorThread = new Thread(this::runReactor, "Unirest Transport IO Reactor");
+        reactorThread.start();
+        syncEviction = IdleConnectionEvictor.register(syncManager, settings.getIdleConnectionTimeout(), settings.getEvictionInterval());
+        asyncEviction = IdleConnectionEvictor.register(asyncManager, settings.getIdleConnectionTimeout(), settings.getEvictionInterval());
+        syncWarmer = ConnectionWarmer.Sync.of(settings, syncManager);
+        asyncWarmer = new ConnectionWarmer.Async(settings, asyncManager);
+    }
+
+    private void runReactor() {
+        try {
+            asyncManager.execute(new TransportIODispatch(new HttpAsyncRequestExecutor()));
+            if (!closed) {
+                reactorFailure = new IllegalStateException("The IO reactor stopped");
+            }
+        } catch (Exception e) {
+            // the reactor has stopped, requests fail from here on and carry this as the cause
+            if (!closed) {
+                reactorFailure = e;
+            }
+        }
+    }
+
+    /**
+     * @return the exception the shared IO reactor stopped with while the transport was still open, or null while it runs.
+     * Async requests fail straight away with it as the cause once it has stopped.
+     */
+    public Exception getReactorFailure() {
+        return reactorFailure;
+    }
+
+    /**
+     * Resolve the hosts of the origins and open connections to them in both pools.
+     * @param origins the origins to connect to, in the form of scheme://host[:port]
+     * @param connectionsPerHost the number of connections to open per origin and pool
+     * @return a future which completes when the connections are open
+     */
+    public CompletableFuture<Void> warmUp(Collection<String> origins, int connectionsPerHost) {
+        return CompletableFuture.allOf(
+                syncWarmer.warmUp(origins, connectionsPerHost),
+                asyncWarmer.warmUp(origins, connectionsPerHost));
+    }
+
+    /**
+     * @return true until every reference to the transport has been released
+     */
+    public boolean isRunning() {
+        return !closed;
+    }
+
+    /**
+     * Release the reference of the creator. The resources are closed once every client built on the
+     * transport has been closed too.
+     */
+    @Override
+    public void close() {
+        if (creator.compareAndSet(false, true)) {
+            release();
+        }
+    }
+
+    /**
+     * Take a reference for a client, which it gives back by releasing the lease when it closes.
+     */
+    Lease lease() {
+        while (true) {
+            int current = references.get();
+            if (current <= 0) {
+                throw new UnirestConfigException("The transport has been closed");
+            }
+            if (references.compareAndSet(current, current + 1)) {
+                return new Lease();
+            }
+        }
+    }
+
+    private void release() {
+        if (references.decrementAndGet() == 0) {
+            shutdown();
+        }
+    }
+
+    private void shutdown() {
+        closed = true;
+        List<Exception> ex = Util.collectExceptions(
+                Util.tryDo(syncEviction, IdleConnectionEvictor.Registration::cancel),
+                Util.tryDo(asyncEviction, IdleConnectionEvictor.Registration::cancel),
+                Util.tryDo(syncManager, HttpClientConnectionManager::shutdown),
+                Util.tryDo(asyncManager, PoolingNHttpClientConnectionManager::shutdown)
+        ).collect(Collectors.toList());
+        if (!ex.isEmpty()) {
+            throw new UnirestException(ex);
+        }
+    }
+
+    Config getSettings() {
+        return settings;
+    }
+
+    HttpClientConnectionManager getSyncManager() {
+        return syncManager;
+    }
+
+    PoolingNHttpClientConnectionManager getAsyncManager() {
+        return asyncManager;
+    }
+
+    AdaptiveValidation getValidation() {
+        return validation;
+    }
+
+    ConnectionWarmer getSyncWarmer() {
+        return syncWarmer;
+    }
+
+    ConnectionWarmer getAsyncWarmer() {
+        return asyncWarmer;
+    }
+
+    class Lease {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                Transport.this.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of unirest-java are held by Kong Inc (c) 2013.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package kong.unirest.apache;
+
+import org.apache.http.impl.nio.DefaultNHttpClientConnection;
+import org.apache.http.impl.nio.reactor.AbstractIODispatch;
+import org.apache.http.nio.NHttpClientEventHandler;
+import org.apache.http.nio.reactor.IOSession;
+
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+
+/**
+ * Dispatches the IO events of a shared async connection pool. Every connection is created by the pool,
+ * which attaches it to its session, so this only has to hand the events to the protocol handler.
+ * This is what the async client does on its own reactor thread when it owns its pool.
+ */
+class TransportIODispatch extends AbstractIODispatch<DefaultNHttpClientConnection> {
+    private final NHttpClientEventHandler handler;
+
+    TransportIODispatch(NHttpClientEventHandler handler) {
+        this.handler = handler;
+    }
+
+    @Override
+    protected DefaultNHttpClientConnection createConnection(IOSession session) {
+        session.close();
+        throw new CancelledKeyException();
+    }
+
+    @Override
+    protected void onConnected(DefaultNHttpClientConnection conn) {
+        Object attachment = conn.getContext().getAttribute(IOSession.ATTACHMENT_KEY);
+        try {
+            handler.connected(conn, attachment);
+        } catch (Exception e) {
+            handler.exception(conn, e);
+        }
+    }
+
+    @Override
+    protected void onClosed(DefaultNHttpClientConnection conn) {
+        handler.closed(conn);
+    }
+
+    @Override
+    protected void onException(DefaultNHttpClientConnection conn, IOException e) {
+        handler.exception(conn, e);
+    }
+
+    @Override
+    protected void onInputReady(DefaultNHttpClientConnection conn) {
+        conn.consumeInput(handler);
+    }
+
+    @Override
+    protected void onOutputReady(DefaultNHttpClientConnection conn) {
+        conn.produceOutput(handler);
+    }
+
+    @Override
+    protected void onTimeout(DefaultNHttpClientConnection conn) {
+        try {
+            handler.timeout(conn);
+        } catch (Exception e) {
+            handler.exception(conn, e);
+        }
+    }
+}